@@ -25,7 +25,7 @@ podman rmi my-java-backend:latest 2>/dev/null || true
 
 # Pull das imagens base
 echo "📥 Pre-pulling base images for ARM64..."
-podman pull --platform linux/arm64 docker.io/amazoncorretto:17-alpine
+podman pull --platform linux/arm64 docker.io/amazoncorretto:21-alpine
 
 echo "📦 Building Maven project with AWS profile..."
 if [ ! -f "./mvnw" ]; then
@@ -0,0 +1,45 @@
+#!/bin/bash
+
+# Compares two JMH JSON result files and fails when a benchmark regressed.
+# Usage: scripts/jmh-compare.sh <baseline.json> <current.json> [threshold-percent]
+
+set -e
+
+BASELINE=$1
+CURRENT=$2
+THRESHOLD=${3:-10}
+
+if [ -z "$BASELINE" ] || [ -z "$CURRENT" ]; then
+    echo "Usage: $0 <baseline.json> <current.json> [threshold-percent]"
+    exit 2
+fi
+
+# Key each result by benchmark name plus its @Param values. The delta is signed so that positive
+# means slower whatever the mode: time per op (avgt, sample, ss) is worse when it grows,
+# throughput (thrpt) when it shrinks
+RESULT=$(jq -r -n --slurpfile base "$BASELINE" --slurpfile curr "$CURRENT" --argjson threshold "$THRESHOLD" '
+  def key: .benchmark + ((.params // {}) | to_entries | map("," + .key + "=" + .value) | join(""));
+  ($base[0] | map({key: key, value: .primaryMetric}) | from_entries) as $b
+  | $curr[0][]
+  | key as $k
+  | select($b[$k] != null)
+  | (if .mode == "thrpt" then -1 else 1 end) as $worse
+  | ((.primaryMetric.score - $b[$k].score) / $b[$k].score * 100 * $worse) as $delta
+  | [(if $delta > $threshold then "REGRESSION" else "ok" end),
+     $k,
+     ($b[$k].score | tostring),
+     (.primaryMetric.score | tostring),
+     .primaryMetric.scoreUnit,
+     (($delta * 10 | round) / 10 | tostring) + "%"]
+  | @tsv')
+
+echo "$RESULT"
+
+if echo "$RESULT" | grep -q "^REGRESSION"; then
+    echo ""
+    echo "❌ Benchmarks regressed by more than ${THRESHOLD}%"
+    exit 1
+fi
+
+echo ""
+echo "✅ No benchmark regressed by more than ${THRESHOLD}%"
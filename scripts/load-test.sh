@@ -0,0 +1,54 @@
+#!/bin/bash
+
+# Compares platform threads and virtual threads under a slow downstream.
+# Each mode starts the packaged jar with the loadtest profile (which sleeps in every /api request),
+# drives it with hey and reports throughput, latency, RSS and live JVM threads.
+#
+# Usage: scripts/load-test.sh [profile] [concurrency] [duration]
+# Requires: a built jar (./mvnw package -DskipTests), the profile's Postgres/RabbitMQ, hey, curl, jq
+
+set -e
+
+PROFILE=${1:-local}
+CONCURRENCY=${2:-1000}
+DURATION=${3:-30s}
+PORT=${PORT:-8080}
+JAR=$(ls target/*.jar | grep -v original | head -1)
+URL="http://localhost:${PORT}/api/products?page=0&size=10"
+
+for cmd in hey curl jq; do
+    command -v $cmd > /dev/null || { echo "❌ $cmd is required"; exit 1; }
+done
+
+run_mode() {
+    local virtual=$1
+
+    echo ""
+    echo "▶️  spring.threads.virtual.enabled=${virtual}"
+    VIRTUAL_THREADS_ENABLED=$virtual java -Djdk.tracePinnedThreads=short -Xmx512m -jar "$JAR" \
+        --spring.profiles.active="${PROFILE},loadtest" --server.port="$PORT" > "target/load-test-${virtual}.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+
+    until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do
+        sleep 1
+        kill -0 $pid 2>/dev/null || { echo "❌ Application failed to start, see target/load-test-${virtual}.log"; exit 1; }
+    done
+
+    # Warm up, then measure
+    hey -z 5s -c 50 "$URL" > /dev/null
+    hey -z "$DURATION" -c "$CONCURRENCY" "$URL" | grep -E "Requests/sec|Average|99%|Status code|\[[0-9]{3}\]"
+
+    echo "RSS:          $(ps -o rss= -p $pid | awk '{printf "%.0f MB", $1 / 1024}')"
+    echo "Live threads: $(curl -s "http://localhost:${PORT}/actuator/metrics/jvm.threads.live" | jq '.measurements[0].value')"
+    # -Djdk.tracePinnedThreads marks the frame holding the monitor with "<== monitors"
+    echo "Pinned:       $(grep -c "<== monitors" "target/load-test-${virtual}.log" || true) frames"
+
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+}
+
+echo "🚀 Load test: ${CONCURRENCY} concurrent clients for ${DURATION} against ${URL}"
+run_mode false
+run_mode true
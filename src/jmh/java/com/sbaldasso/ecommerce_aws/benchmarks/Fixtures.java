@@ -0,0 +1,34 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static Product product(long id) {
+        Instant now = Instant.parse("2024-01-15T10:15:30Z");
+        return new Product(id, "SKU-" + id, "Product " + id,
+                "A reasonably sized description for product " + id + ", similar to what the catalogue stores",
+                new BigDecimal("199.90"), 42, now, now, 3L);
+    }
+
+    static ProductRequest request(long id) {
+        return new ProductRequest("SKU-" + id, "Product " + id, "Description " + id, new BigDecimal("19.90"), 7);
+    }
+
+    // Same serialization settings as the Spring Boot auto-configured mapper
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
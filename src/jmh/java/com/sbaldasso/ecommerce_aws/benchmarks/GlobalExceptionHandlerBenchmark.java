@@ -0,0 +1,47 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.sbaldasso.ecommerce_aws.dto.ErrorResponse;
+import com.sbaldasso.ecommerce_aws.exception.GlobalExceptionHandler;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+// Includes throwing the exception, since stack trace capture is usually the bigger share
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        request = new MockHttpServletRequest("GET", "/api/products/42");
+    }
+
+    // What the service throws: no stack trace
+    @Benchmark
+    public ResponseEntity<ErrorResponse> notFound() {
+        return handler.handleIllegalArgumentException(new ProductNotFoundException(), request);
+    }
+
+    // The same 404 from an exception that captures its stack trace, for comparison
+    @Benchmark
+    public ResponseEntity<ErrorResponse> notFoundWithStackTrace() {
+        return handler.handleIllegalArgumentException(
+                new IllegalArgumentException("Product not found: 42"), request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> unexpectedError() {
+        return handler.handleGenericException(new IllegalStateException("boom"), request);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.sbaldasso.ecommerce_aws.config.InventoryProperties;
+import com.sbaldasso.ecommerce_aws.services.InventoryLeaseStore;
+import com.sbaldasso.ecommerce_aws.services.InventoryLedger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One hot SKU, 256 concurrent buyers reserving one unit each. stripes=1 is a single shared
+// counter; rowLock models every buyer serializing on one lock, as they do on the row in Postgres
+// (without the round trip, so the real gap is wider).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class InventoryLedgerBenchmark {
+
+    private static final long HOT_PRODUCT = 1L;
+
+    @Param({"1", "8", "64"})
+    public int stripes;
+
+    private InventoryLedger ledger;
+    private final Object row = new Object();
+    private long rowQuantity = Long.MAX_VALUE;
+
+    @Setup
+    public void setUp() {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setHotProducts(Set.of(HOT_PRODUCT));
+        properties.setStripes(stripes);
+        properties.setLeaseSize(1000);
+        ledger = new InventoryLedger(new UnlimitedStock(), properties);
+    }
+
+    @Benchmark
+    public boolean ledger() {
+        return ledger.reserve(HOT_PRODUCT, 1);
+    }
+
+    @Benchmark
+    public boolean rowLock() {
+        synchronized (row) {
+            if (rowQuantity < 1) {
+                return false;
+            }
+            rowQuantity--;
+            return true;
+        }
+    }
+
+    static final class UnlimitedStock implements InventoryLeaseStore {
+        private final AtomicLong leases = new AtomicLong();
+
+        @Override
+        public int lease(long productId, int max) {
+            leases.incrementAndGet();
+            return max;
+        }
+
+        @Override
+        public void restock(Map<Long, Integer> units) {
+        }
+    }
+}
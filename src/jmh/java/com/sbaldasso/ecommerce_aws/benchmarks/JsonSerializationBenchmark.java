@@ -0,0 +1,50 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ProductResponse response;
+    private Page<ProductResponse> page;
+
+    @Setup
+    public void setUp() {
+        writer = Fixtures.objectMapper().writer();
+        response = ProductMapper.toResponse(Fixtures.product(1));
+        List<ProductResponse> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(ProductMapper.toResponse(Fixtures.product(i)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] productResponse() throws Exception {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] productPage() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,55 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.sbaldasso.ecommerce_aws.aspect.LoggingAspect;
+import com.sbaldasso.ecommerce_aws.aspect.MethodTimers;
+import com.sbaldasso.ecommerce_aws.config.LoggingAspectProperties;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+// Overhead of the controller advice: compare proxied against direct for the per-call cost
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingAspectBenchmark {
+
+    private Controller direct;
+    private Controller proxied;
+    private ProductRequest request;
+
+    @Setup
+    public void setUp() {
+        LoggingAspectProperties properties = new LoggingAspectProperties();
+        direct = new Controller();
+        AspectJProxyFactory factory = new AspectJProxyFactory(direct);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggingAspect(new MethodTimers(new SimpleMeterRegistry(), properties), properties));
+        proxied = factory.getProxy();
+        request = Fixtures.request(1);
+    }
+
+    @Benchmark
+    public Object direct() {
+        return direct.handle(1L, request);
+    }
+
+    @Benchmark
+    public Object proxied() {
+        return proxied.handle(1L, request);
+    }
+
+    @RestController
+    public static class Controller {
+
+        public Object handle(Long id, ProductRequest request) {
+            return request;
+        }
+    }
+}
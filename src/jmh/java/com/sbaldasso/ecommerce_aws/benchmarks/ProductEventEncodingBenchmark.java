@@ -0,0 +1,43 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import com.sbaldasso.ecommerce_aws.messaging.ProductEventsMessageConverter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.concurrent.TimeUnit;
+
+// Sizes on the wire are compared in ProductEventsMessageConverterTest
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductEventEncodingBenchmark {
+
+    @Param({"json", "binary"})
+    public String encoding;
+
+    private ProductEventsMessageConverter converter;
+    private ProductCreatedEvent event;
+    private Message encoded;
+
+    @Setup
+    public void setUp() {
+        converter = new ProductEventsMessageConverter("binary".equals(encoding));
+        event = new ProductCreatedEvent(1_048_576L, "SKU-1048576");
+        encoded = converter.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encode() {
+        return converter.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decode() {
+        return converter.fromMessage(encoded);
+    }
+}
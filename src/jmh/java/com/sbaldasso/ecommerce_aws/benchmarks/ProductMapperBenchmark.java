@@ -0,0 +1,43 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductMapperBenchmark {
+
+    private Product product;
+    private ProductRequest request;
+
+    @Setup
+    public void setUp() {
+        product = Fixtures.product(1);
+        request = Fixtures.request(1);
+    }
+
+    @Benchmark
+    public ProductResponse toResponse() {
+        return ProductMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public Product toEntity() {
+        return ProductMapper.toEntity(request);
+    }
+
+    @Benchmark
+    public Product updateEntity() {
+        ProductMapper.updateEntity(product, request);
+        return product;
+    }
+}
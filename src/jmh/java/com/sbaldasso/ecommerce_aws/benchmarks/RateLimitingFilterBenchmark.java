@@ -0,0 +1,66 @@
+package com.sbaldasso.ecommerce_aws.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.sbaldasso.ecommerce_aws.config.RateLimitConfig;
+import com.sbaldasso.ecommerce_aws.security.RateLimitingFilter;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+// Steady state with a bounded bucket store: beyond max-buckets distinct clients every request
+// misses the cache and pays for a new bucket plus an eviction
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitingFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    @Param({"1", "10000", "1000000"})
+    public int distinctClients;
+
+    private RateLimitingFilter filter;
+    private String[] forwardedFor;
+
+    @Setup
+    public void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        // High enough that every request passes: this measures the lookup, not the 429 path
+        config.setCapacity(1_000_000_000L);
+        config.setRefillTokens(1_000_000_000L);
+        // Clients reach the peer through an internal proxy (172.31.0.10): two trusted hops
+        config.setTrustedProxies(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Cache<String, Bucket> buckets = config.rateLimitBuckets(registry);
+        filter = new RateLimitingFilter(config, buckets, config.localBucketFactory(), registry);
+
+        forwardedFor = new String[distinctClients];
+        for (int i = 0; i < distinctClients; i++) {
+            forwardedFor[i] = "10." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff)
+                    + ", 172.31.0.10";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public int doFilter(Client client) throws Exception {
+        client.request.removeHeader("X-Forwarded-For");
+        client.request.addHeader("X-Forwarded-For", forwardedFor[client.next++ % forwardedFor.length]);
+        filter.doFilter(client.request, client.response, NOOP_CHAIN);
+        return client.response.getStatus();
+    }
+}
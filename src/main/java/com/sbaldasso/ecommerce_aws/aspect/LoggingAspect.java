@@ -1,54 +1,81 @@
 package com.sbaldasso.ecommerce_aws.aspect;
 
+import com.sbaldasso.ecommerce_aws.config.LoggingAspectProperties;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
 
+    private final MethodTimers timers;
+    private final LoggingAspectProperties properties;
+
+    public LoggingAspect(MethodTimers timers, LoggingAspectProperties properties) {
+        this.timers = timers;
+        this.properties = properties;
+    }
+
     @Around("@within(org.springframework.web.bind.annotation.RestController)")
     public Object logController(ProceedingJoinPoint joinPoint) throws Throwable {
-        String methodName = joinPoint.getSignature().getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        
-        log.info("Calling {}.{} with args: {}", 
-                className, methodName, Arrays.toString(joinPoint.getArgs()));
-        
-        long startTime = System.currentTimeMillis();
-        
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (shouldLogArgs()) {
+            log.info("Calling {}.{} with args: {}", method.getDeclaringClass().getSimpleName(), method.getName(),
+                    formatArgs(joinPoint.getArgs(), properties.getMaxArgsLength()));
+        }
+
+        long start = System.nanoTime();
         try {
             Object result = joinPoint.proceed();
-            long duration = System.currentTimeMillis() - startTime;
-            
-            log.info("Method {}.{} executed successfully in {}ms", 
-                    className, methodName, duration);
-            
+            long duration = System.nanoTime() - start;
+            timers.record("controller", method, duration, true);
+            if (log.isDebugEnabled()) {
+                log.debug("Method {}.{} executed successfully in {}µs",
+                        method.getDeclaringClass().getSimpleName(), method.getName(), duration / 1_000);
+            }
             return result;
         } catch (Exception e) {
-            log.error("Error in {}.{}: {}", className, methodName, e.getMessage(), e);
+            timers.record("controller", method, System.nanoTime() - start, false);
+            // Expected for ids probed at random, which must stay cheap: timed, not logged
+            if (e instanceof ProductNotFoundException) {
+                throw e;
+            }
+            log.error("Error in {}.{}: {}", method.getDeclaringClass().getSimpleName(), method.getName(),
+                    e.getMessage(), e);
             throw e;
         }
     }
 
-    @Around("@within(org.springframework.stereotype.Service)")
-    public Object logService(ProceedingJoinPoint joinPoint) throws Throwable {
-        String methodName = joinPoint.getSignature().getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        
-        log.debug("Service {}.{} called", className, methodName);
-        
-        try {
-            return joinPoint.proceed();
-        } catch (Exception e) {
-            log.error("Service error in {}.{}: {}", className, methodName, e.getMessage());
-            throw e;
+    private boolean shouldLogArgs() {
+        if (!properties.isLogArgs() || !log.isInfoEnabled()) {
+            return false;
+        }
+        double rate = properties.getArgsSampleRate();
+        return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    // Like Arrays.toString, but stops appending once maxLength characters are written
+    static String formatArgs(Object[] args, int maxLength) {
+        StringBuilder sb = new StringBuilder(Math.min(maxLength, 64) + 4).append('[');
+        for (int i = 0; i < args.length && sb.length() <= maxLength; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(args[i]);
+        }
+        if (sb.length() > maxLength) {
+            sb.setLength(maxLength);
+            return sb.append("...]").toString();
         }
+        return sb.append(']').toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.sbaldasso.ecommerce_aws.aspect;
+
+import com.sbaldasso.ecommerce_aws.config.LoggingAspectProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// One pair of timers per advised method, resolved once; the hot path is a single map lookup
+@Component
+public class MethodTimers {
+
+    static final String METRIC_NAME = "method.timed";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean percentileHistogram;
+    private final Map<Method, Pair> timers = new ConcurrentHashMap<>();
+
+    public MethodTimers(MeterRegistry meterRegistry, LoggingAspectProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.percentileHistogram = properties.isPercentileHistogram();
+    }
+
+    public void record(String layer, Method method, long durationNanos, boolean success) {
+        Pair pair = timers.get(method);
+        if (pair == null) {
+            pair = timers.computeIfAbsent(method, m -> new Pair(timer(layer, m, "success"), timer(layer, m, "error")));
+        }
+        (success ? pair.success : pair.error).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String layer, Method method, String outcome) {
+        return Timer.builder(METRIC_NAME)
+                .tag("layer", layer)
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(percentileHistogram)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    private record Pair(Timer success, Timer error) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.sbaldasso.ecommerce_aws.aspect;
+
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+// Timing only: no per-call logging, so the advice costs a nanoTime pair and a map lookup
+@Slf4j
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "aspect", name = "service-timing-enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceTimingAspect {
+
+    private final MethodTimers timers;
+
+    public ServiceTimingAspect(MethodTimers timers) {
+        this.timers = timers;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timers.record("service", method, System.nanoTime() - start, true);
+            return result;
+        } catch (Exception e) {
+            timers.record("service", method, System.nanoTime() - start, false);
+            // Expected for ids probed at random, which must stay cheap: timed, not logged
+            if (e instanceof ProductNotFoundException) {
+                throw e;
+            }
+            log.error("Service error in {}.{}: {}", method.getDeclaringClass().getSimpleName(), method.getName(),
+                    e.getMessage());
+            throw e;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @ConfigurationProperties(prefix = "aws")
 @Data
@@ -13,6 +16,8 @@ public class AwsProperties {
     private S3 s3 = new S3();
     private Sqs sqs = new Sqs();
     private XRay xray = new XRay();
+    private CloudWatch cloudwatch = new CloudWatch();
+    private CloudFront cloudfront = new CloudFront();
 
     @Data
     public static class Secrets {
@@ -34,4 +39,32 @@ public class AwsProperties {
     public static class XRay {
         private boolean enabled = true;
     }
+
+    @Data
+    public static class CloudWatch {
+        private String namespace = "MyApplication/Backend";
+        private String logGroup;
+        private String logStream;
+        // PutMetricData accepts at most 1000 datums per call
+        private int batchSize = 1000;
+        private int queueCapacity = 10000;
+        private int maxRoutes = 200;
+        private Duration flushInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class CloudFront {
+        private String distributionId;
+        private boolean enabled = true;
+        // A batch is sent once no write arrived for `debounce`, or `maxDelay` after its first write
+        private Duration debounce = Duration.ofSeconds(5);
+        private Duration maxDelay = Duration.ofSeconds(60);
+        // Above this many paths a batch collapses into the wildcard (billed as a single path)
+        private int maxPaths = 100;
+        private String itemPathPrefix = "/api/products/";
+        private List<String> listPaths = List.of("/api/products", "/api/products?*", "/api/products/cursor*");
+        private String wildcardPath = "/api/products*";
+        private Duration initialBackoff = Duration.ofSeconds(5);
+        private Duration maxBackoff = Duration.ofMinutes(5);
+    }
 }
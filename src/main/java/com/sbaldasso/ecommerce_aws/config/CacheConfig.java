@@ -0,0 +1,16 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Caffeine settings live under spring.cache in application.yml. The cache advice wraps the
+// transactional one, so hits never open a transaction and evictions run after commit.
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+    // Serialized GET /api/products/{id} bodies, see ProductBodyCache
+    public static final String PRODUCT_BODIES_CACHE = "product-bodies";
+}
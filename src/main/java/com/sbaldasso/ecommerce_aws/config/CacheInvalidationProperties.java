@@ -0,0 +1,17 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "cache-invalidation")
+@Data
+public class CacheInvalidationProperties {
+    private boolean broadcast = true;
+    // Messages waiting for the sender; when full, new ones are dropped and receivers see a gap
+    private int queueCapacity = 10_000;
+    private Duration sendInterval = Duration.ofMillis(20);
+}
@@ -0,0 +1,203 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Product writes only queue CloudFront paths; a debounced flush sends them as one invalidation.
+// Bursts collapse into a single request, and a batch over budget becomes the wildcard path.
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "aws.cloudfront", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CloudFrontInvalidationScheduler {
+
+    private final CloudFrontService cloudFrontService;
+    private final AwsProperties.CloudFront properties;
+    private final Clock clock;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean wildcardPending = new AtomicBoolean();
+    // Epoch millis of the oldest unsent write; 0 when nothing is queued
+    private final AtomicLong firstQueuedAt = new AtomicLong();
+    private volatile long lastQueuedAt;
+
+    // Only touched by the flushing thread
+    private long retryAt;
+    private int consecutiveFailures;
+
+    private final Counter requests;
+    private final Counter pathsSent;
+    private final Counter coalesced;
+    private final Counter escalated;
+    private final Counter failed;
+
+    @Autowired
+    public CloudFrontInvalidationScheduler(CloudFrontService cloudFrontService,
+                                           AwsProperties awsProperties,
+                                           MeterRegistry meterRegistry) {
+        this(cloudFrontService, awsProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    CloudFrontInvalidationScheduler(CloudFrontService cloudFrontService,
+                                    AwsProperties awsProperties,
+                                    MeterRegistry meterRegistry,
+                                    Clock clock) {
+        this.cloudFrontService = cloudFrontService;
+        this.properties = awsProperties.getCloudfront();
+        this.clock = clock;
+
+        this.requests = Counter.builder("cloudfront.invalidation.requests").register(meterRegistry);
+        this.pathsSent = Counter.builder("cloudfront.invalidation.paths").register(meterRegistry);
+        this.coalesced = Counter.builder("cloudfront.invalidation.coalesced")
+                .description("Paths already queued by an earlier write in the same window")
+                .register(meterRegistry);
+        this.escalated = Counter.builder("cloudfront.invalidation.escalated")
+                .description("Batches replaced by the wildcard path")
+                .register(meterRegistry);
+        this.failed = Counter.builder("cloudfront.invalidation.failed").register(meterRegistry);
+        Gauge.builder("cloudfront.invalidation.pending", pending, Set::size).register(meterRegistry);
+    }
+
+    // After commit: a rolled back write must not invalidate anything
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.IMPORTED) {
+            enqueueAll();
+        } else {
+            enqueue(event.getIds());
+        }
+    }
+
+    // Item paths for the ids plus the list paths, which every write makes stale
+    public void enqueue(Collection<Long> ids) {
+        for (Long id : ids) {
+            add(properties.getItemPathPrefix() + id);
+        }
+        properties.getListPaths().forEach(this::add);
+        if (pending.size() > properties.getMaxPaths() && !wildcardPending.getAndSet(true)) {
+            escalated.increment();
+        }
+        if (wildcardPending.get()) {
+            // Covered by the wildcard; keeps the queue bounded during large batches
+            pending.clear();
+        }
+        touch();
+    }
+
+    public void enqueueAll() {
+        wildcardPending.set(true);
+        pending.clear();
+        touch();
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flush() {
+        long now = clock.millis();
+        long first = firstQueuedAt.get();
+        if (first == 0 || now < retryAt) {
+            return;
+        }
+        boolean quiet = now - lastQueuedAt >= properties.getDebounce().toMillis();
+        boolean overdue = now - first >= properties.getMaxDelay().toMillis();
+        if (quiet || overdue) {
+            send(drain());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (firstQueuedAt.get() != 0) {
+            send(drain());
+        }
+    }
+
+    List<String> drain() {
+        firstQueuedAt.set(0);
+        if (wildcardPending.getAndSet(false)) {
+            pending.clear();
+            return List.of(properties.getWildcardPath());
+        }
+        List<String> paths = new ArrayList<>(pending.size());
+        for (Iterator<String> it = pending.iterator(); it.hasNext(); ) {
+            paths.add(it.next());
+            it.remove();
+        }
+        if (paths.size() > properties.getMaxPaths()) {
+            escalated.increment();
+            return List.of(properties.getWildcardPath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private void send(List<String> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        try {
+            // A fresh reference per attempt: reusing one would make CloudFront return the old invalidation
+            String invalidationId = cloudFrontService.createInvalidation(paths, UUID.randomUUID().toString());
+            requests.increment();
+            pathsSent.increment(paths.size());
+            consecutiveFailures = 0;
+            retryAt = 0;
+            log.info("Invalidação {} enviada ao CloudFront com {} caminhos", invalidationId, paths.size());
+        } catch (Exception e) {
+            failed.increment();
+            requeue(paths);
+            long backoff = backoffMillis(++consecutiveFailures);
+            retryAt = clock.millis() + backoff;
+            log.warn("Falha ao invalidar {} caminhos no CloudFront (tentativa {}); nova tentativa em {} ms",
+                    paths.size(), consecutiveFailures, backoff, e);
+        }
+    }
+
+    private void requeue(List<String> paths) {
+        if (paths.contains(properties.getWildcardPath())) {
+            wildcardPending.set(true);
+            pending.clear();
+        } else {
+            pending.addAll(paths);
+        }
+        firstQueuedAt.compareAndSet(0, clock.millis());
+    }
+
+    private long backoffMillis(int failures) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        int shift = Math.min(failures - 1, 30);
+        return Math.min(initial << shift, max);
+    }
+
+    private void add(String path) {
+        if (!pending.add(path)) {
+            coalesced.increment();
+        }
+    }
+
+    private void touch() {
+        long now = clock.millis();
+        lastQueuedAt = now;
+        firstQueuedAt.compareAndSet(0, now);
+    }
+}
@@ -22,30 +22,34 @@ public class CloudFrontService {
 
     public void invalidateCache(List<String> paths) {
         try {
-            Paths invalidationPaths = Paths.builder()
-                    .items(paths)
-                    .quantity(paths.size())
-                    .build();
-
-            InvalidationBatch batch = InvalidationBatch.builder()
-                    .paths(invalidationPaths)
-                    .callerReference(UUID.randomUUID().toString())
-                    .build();
-
-            CreateInvalidationRequest request = CreateInvalidationRequest.builder()
-                    .distributionId(distributionId)
-                    .invalidationBatch(batch)
-                    .build();
-
-            CreateInvalidationResponse response = cloudFrontClient.createInvalidation(request);
-            log.info("Cache invalidado no CloudFront. Invalidation ID: {}", 
-                    response.invalidation().id());
+            String invalidationId = createInvalidation(paths, UUID.randomUUID().toString());
+            log.info("Cache invalidado no CloudFront. Invalidation ID: {}", invalidationId);
         } catch (Exception e) {
             log.error("Erro ao invalidar cache do CloudFront", e);
             throw new RuntimeException("Falha ao invalidar cache", e);
         }
     }
 
+    // Sem tratamento de erro: quem chama decide se repete (ver CloudFrontInvalidationScheduler)
+    public String createInvalidation(List<String> paths, String callerReference) {
+        Paths invalidationPaths = Paths.builder()
+                .items(paths)
+                .quantity(paths.size())
+                .build();
+
+        InvalidationBatch batch = InvalidationBatch.builder()
+                .paths(invalidationPaths)
+                .callerReference(callerReference)
+                .build();
+
+        CreateInvalidationRequest request = CreateInvalidationRequest.builder()
+                .distributionId(distributionId)
+                .invalidationBatch(batch)
+                .build();
+
+        return cloudFrontClient.createInvalidation(request).invalidation().id();
+    }
+
     public void invalidateAllCache() {
         invalidateCache(List.of("/*"));
     }
@@ -1,8 +1,12 @@
 package com.sbaldasso.ecommerce_aws.config;
 
-import lombok.RequiredArgsConstructor;
+import com.sbaldasso.ecommerce_aws.metrics.RequestMetricsAggregator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.cloudwatch.model.*;
@@ -10,57 +14,96 @@ import software.amazon.awssdk.services.cloudwatch.model.*;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CloudWatchMetricsService {
 
     private final CloudWatchClient cloudWatchClient;
-    
-    @Value("${aws.cloudwatch.namespace}")
-    private String namespace;
+    private final RequestMetricsAggregator aggregator;
+    private final String namespace;
+    private final int batchSize;
+    private final BlockingQueue<MetricDatum> queue;
 
+    private final Counter dropped;
+    private final Counter published;
+    private final Counter failed;
+
+    public CloudWatchMetricsService(CloudWatchClient cloudWatchClient,
+                                    RequestMetricsAggregator aggregator,
+                                    AwsProperties awsProperties,
+                                    MeterRegistry meterRegistry) {
+        AwsProperties.CloudWatch properties = awsProperties.getCloudwatch();
+        this.cloudWatchClient = cloudWatchClient;
+        this.aggregator = aggregator;
+        this.namespace = properties.getNamespace();
+        this.batchSize = properties.getBatchSize();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        this.dropped = Counter.builder("cloudwatch.metrics.dropped")
+                .description("Metric datums discarded because the publish queue was full")
+                .register(meterRegistry);
+        this.published = Counter.builder("cloudwatch.metrics.published").register(meterRegistry);
+        this.failed = Counter.builder("cloudwatch.metrics.failed").register(meterRegistry);
+        Gauge.builder("cloudwatch.metrics.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // Non-blocking: the datum is queued and sent by the next flush
     public void publishMetric(String metricName, double value, StandardUnit unit) {
-        try {
-            MetricDatum datum = MetricDatum.builder()
-                    .metricName(metricName)
-                    .value(value)
-                    .unit(unit)
-                    .timestamp(Instant.now())
-                    .build();
+        enqueue(MetricDatum.builder()
+                .metricName(metricName)
+                .value(value)
+                .unit(unit)
+                .timestamp(Instant.now())
+                .build());
+    }
 
-            PutMetricDataRequest request = PutMetricDataRequest.builder()
-                    .namespace(namespace)
-                    .metricData(datum)
-                    .build();
+    public void publishMetricWithDimensions(String metricName, double value,
+                                           StandardUnit unit, List<Dimension> dimensions) {
+        enqueue(MetricDatum.builder()
+                .metricName(metricName)
+                .value(value)
+                .unit(unit)
+                .timestamp(Instant.now())
+                .dimensions(dimensions)
+                .build());
+    }
 
-            cloudWatchClient.putMetricData(request);
-            log.debug("Métrica publicada: {} = {}", metricName, value);
-        } catch (Exception e) {
-            log.error("Erro ao publicar métrica no CloudWatch", e);
+    @Scheduled(fixedDelayString = "#{@awsProperties.cloudwatch.flushInterval.toMillis()}",
+            initialDelayString = "#{@awsProperties.cloudwatch.flushInterval.toMillis()}")
+    public void flush() {
+        List<MetricDatum> data = new ArrayList<>(aggregator.drain(Instant.now()));
+        queue.drainTo(data);
+
+        for (int from = 0; from < data.size(); from += batchSize) {
+            send(data.subList(from, Math.min(from + batchSize, data.size())));
         }
     }
 
-    public void publishMetricWithDimensions(String metricName, double value, 
-                                           StandardUnit unit, List<Dimension> dimensions) {
-        try {
-            MetricDatum datum = MetricDatum.builder()
-                    .metricName(metricName)
-                    .value(value)
-                    .unit(unit)
-                    .timestamp(Instant.now())
-                    .dimensions(dimensions)
-                    .build();
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
 
-            PutMetricDataRequest request = PutMetricDataRequest.builder()
-                    .namespace(namespace)
-                    .metricData(datum)
-                    .build();
+    private void enqueue(MetricDatum datum) {
+        if (!queue.offer(datum)) {
+            dropped.increment();
+        }
+    }
 
-            cloudWatchClient.putMetricData(request);
+    private void send(List<MetricDatum> batch) {
+        try {
+            cloudWatchClient.putMetricData(PutMetricDataRequest.builder()
+                    .namespace(namespace)
+                    .metricData(batch)
+                    .build());
+            published.increment(batch.size());
+            log.debug("Lote de {} métricas publicado", batch.size());
         } catch (Exception e) {
-            log.error("Erro ao publicar métrica com dimensões", e);
+            failed.increment(batch.size());
+            log.error("Erro ao publicar lote de {} métricas no CloudWatch", batch.size(), e);
         }
     }
-}
\ No newline at end of file
+}
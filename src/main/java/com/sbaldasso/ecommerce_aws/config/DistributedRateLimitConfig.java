@@ -0,0 +1,55 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import com.sbaldasso.ecommerce_aws.security.RateLimitBucketFactory;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.PostgreSQLadvisoryLockBasedProxyManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "distributed")
+public class DistributedRateLimitConfig {
+
+    @Bean
+    public ProxyManager<String> rateLimitProxyManager(DataSource dataSource, RateLimitConfig rateLimitConfig) {
+        SQLProxyConfiguration<String> configuration = SQLProxyConfiguration.builder()
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .withTableSettings(BucketTableSettings.customSettings(
+                        rateLimitConfig.getDistributed().getTableName(), "id", "state"))
+                .build(dataSource);
+        return new PostgreSQLadvisoryLockBasedProxyManager<>(configuration);
+    }
+
+    @Bean
+    public RateLimitBucketFactory distributedBucketFactory(ProxyManager<String> rateLimitProxyManager,
+                                                           RateLimitConfig rateLimitConfig) {
+        RateLimitConfig.Distributed distributed = rateLimitConfig.getDistributed();
+        BucketConfiguration bucketConfiguration = rateLimitConfig.bucketConfiguration();
+        log.info("Distributed rate limiting enabled (table={}, prefetchTokens={})",
+                distributed.getTableName(), distributed.getPrefetchTokens());
+
+        return clientKey -> {
+            RemoteBucketBuilder<String> builder = rateLimitProxyManager.builder();
+            if (distributed.getPrefetchTokens() > 0) {
+                // Consume locally and reconcile with Postgres once the threshold or period is reached.
+                // The filter caches the proxy per client, so the local state survives between requests.
+                builder = builder.withOptimization(Optimizations.delaying(new DelayParameters(
+                        distributed.getPrefetchTokens(),
+                        rateLimitConfig.parseDuration(distributed.getMaxUnsyncedPeriod()))));
+            }
+            return builder.build(clientKey, () -> bucketConfiguration);
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory")
+@Data
+public class InventoryProperties {
+    // Products whose reservations are served from the in-memory ledger (see InventoryLedger)
+    private Set<Long> hotProducts = new HashSet<>();
+    private int stripes = 8;
+    // Units taken from Postgres per lease
+    private int leaseSize = 50;
+    // Unused leased units go back to Postgres this often
+    private Duration flushInterval = Duration.ofSeconds(1);
+}
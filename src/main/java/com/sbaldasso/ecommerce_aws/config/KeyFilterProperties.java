@@ -0,0 +1,19 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "key-filter")
+@Data
+public class KeyFilterProperties {
+    private boolean enabled = true;
+    // Lower bound; a rebuild sizes for twice the current row count when that is larger
+    private long expectedInsertions = 1_000_000;
+    private double falsePositiveRate = 0.01;
+    // Rebuilds drop deleted keys and resize for growth
+    private Duration rebuildInterval = Duration.ofHours(6);
+}
@@ -0,0 +1,18 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aspect")
+@Data
+public class LoggingAspectProperties {
+    // Controller arguments are only rendered when enabled, and then for a sample of calls
+    private boolean logArgs = false;
+    private double argsSampleRate = 0.01;
+    private int maxArgsLength = 256;
+    // Times every @Service call; disabling removes the advice altogether
+    private boolean serviceTimingEnabled = true;
+    private boolean percentileHistogram = true;
+}
@@ -0,0 +1,27 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+@Data
+public class OutboxProperties {
+    private boolean relayEnabled = true;
+    private int batchSize = 200;
+    private Duration pollInterval = Duration.ofMillis(500);
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+    // Nacked messages are re-sent this many times before the rows wait for the next poll
+    private int maxNackRetries = 2;
+    // How long a claimed batch stays invisible to other relays. Must exceed the longest publish,
+    // confirmTimeout * (1 + maxNackRetries), or another task may send the same rows again.
+    private Duration claimTimeout = Duration.ofMinutes(1);
+    // Unconfirmed and rejected rows wait this long before they are claimed again
+    private Duration retryDelay = Duration.ofSeconds(5);
+    // Rows returned or nacked this many times move to outbox_dead_letters. Missing confirms
+    // (broker unreachable) do not count.
+    private int maxAttempts = 10;
+}
@@ -0,0 +1,13 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "product-body-cache")
+@Data
+public class ProductBodyCacheProperties {
+    // Bodies at least this large also keep a gzipped copy; negative disables pre-compression
+    private int gzipMinSize = 1024;
+}
@@ -0,0 +1,21 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "product-events")
+@Data
+public class ProductEventsProperties {
+    private boolean consumerEnabled = true;
+    private int batchSize = 50;
+    private Duration batchTimeout = Duration.ofSeconds(1);
+    private Encoding encoding = Encoding.JSON;
+
+    public enum Encoding {
+        JSON, BINARY
+    }
+}
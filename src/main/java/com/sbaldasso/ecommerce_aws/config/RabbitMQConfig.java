@@ -1,9 +1,18 @@
 package com.sbaldasso.ecommerce_aws.config;
 
+import com.sbaldasso.ecommerce_aws.messaging.ProductEventsMessageConverter;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Base64UrlNamingStrategy;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -11,21 +20,100 @@ import org.springframework.context.annotation.Configuration;
 public class RabbitMQConfig {
 
     public static final String PRODUCT_CREATED_QUEUE = "product.created.queue";
+    public static final String PRODUCT_CREATED_DLQ = "product.created.dlq";
+    public static final String PRODUCTS_IMPORTED_QUEUE = "products.imported.queue";
+    public static final String PRODUCT_INVALIDATION_EXCHANGE = "product.invalidation.fanout";
 
+    public static final String BATCH_LISTENER_FACTORY = "batchListenerContainerFactory";
+    public static final String INVALIDATION_LISTENER_FACTORY = "invalidationListenerContainerFactory";
+    public static final String INVALIDATION_LISTENER_ID = "productInvalidation";
+
+    // Rejected messages are dead-lettered through the default exchange. Adding the arguments to
+    // a queue that already exists without them fails the declaration: delete the queue once, or
+    // apply the same settings with a broker policy.
     @Bean
     public Queue productCreatedQueue() {
-        return new Queue(PRODUCT_CREATED_QUEUE, true);
+        return QueueBuilder.durable(PRODUCT_CREATED_QUEUE)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(PRODUCT_CREATED_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Queue productCreatedDeadLetterQueue() {
+        return QueueBuilder.durable(PRODUCT_CREATED_DLQ).build();
+    }
+
+    @Bean
+    public Queue productsImportedQueue() {
+        return new Queue(PRODUCTS_IMPORTED_QUEUE, true);
+    }
+
+    // Near-cache coherence: every node binds its own uniquely named, exclusive, auto-delete queue,
+    // so invalidations reach all running tasks and nothing piles up for the ones that are gone
+    @Bean
+    public FanoutExchange productInvalidationExchange() {
+        return new FanoutExchange(PRODUCT_INVALIDATION_EXCHANGE, true, false);
     }
 
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public Queue productInvalidationQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("product.invalidation."));
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public Binding productInvalidationBinding(FanoutExchange productInvalidationExchange,
+                                              Queue productInvalidationQueue) {
+        return BindingBuilder.bind(productInvalidationQueue).to(productInvalidationExchange);
+    }
+
+    // Consumers accept JSON and the binary format whatever product-events.encoding says, so switch
+    // every consumer to this converter before any producer writes binary
+    @Bean
+    public MessageConverter messageConverter(ProductEventsProperties properties) {
+        return new ProductEventsMessageConverter(properties.getEncoding() == ProductEventsProperties.Encoding.BINARY);
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(messageConverter());
+        template.setMessageConverter(messageConverter);
+        // Unroutable messages come back (publisher-returns) instead of being acked and dropped
+        template.setMandatory(true);
         return template;
     }
-}
\ No newline at end of file
+
+    // spring.rabbitmq.listener.simple.* (prefetch, concurrency, acknowledge mode, retry) applies
+    // as for the default factory; consumers on this one receive a List of up to batch-size messages
+    @Bean(BATCH_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            ProductEventsProperties properties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(properties.getBatchSize());
+        // A partial batch is delivered once no message arrived for this long
+        factory.setReceiveTimeout(properties.getBatchTimeout().toMillis());
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    // Exactly one consumer, whatever spring.rabbitmq.listener.simple.max-concurrency says: gap
+    // detection needs each node's invalidations handled in the order they were sent. A message
+    // that fails is dropped rather than requeued behind later ones; the next message from that
+    // node then shows the gap.
+    @Bean(INVALIDATION_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory invalidationListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+}
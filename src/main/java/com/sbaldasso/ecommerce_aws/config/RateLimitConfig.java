@@ -1,16 +1,21 @@
 package com.sbaldasso.ecommerce_aws.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import com.sbaldasso.ecommerce_aws.security.RateLimitBucketFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @ConfigurationProperties(prefix = "rate-limit")
@@ -20,21 +25,75 @@ public class RateLimitConfig {
     private long capacity = 100;
     private long refillTokens = 100;
     private String refillDuration = "1m";
+    private long maxBuckets = 100_000;
+    private String bucketIdleTimeout = "10m";
+    // Proxies in front of the app that append to X-Forwarded-For (1 behind the ALB). 0 ignores
+    // the header: without a proxy every entry in it is client supplied.
+    private int trustedProxies = 0;
+    private Mode mode = Mode.LOCAL;
+    private Distributed distributed = new Distributed();
+
+    public enum Mode {
+        // Buckets held in this task's heap: the effective limit scales with the task count
+        LOCAL,
+        // Bucket state shared through Postgres so the limit holds across all tasks
+        DISTRIBUTED
+    }
+
+    @Data
+    public static class Distributed {
+        private String tableName = "rate_limit_buckets";
+        // Tokens a task may consume locally before reconciling with the shared bucket (0 = every request)
+        private long prefetchTokens = 10;
+        private String maxUnsyncedPeriod = "1s";
+    }
 
     @Bean
-    public Map<String, Bucket> rateLimitBuckets() {
-        return new ConcurrentHashMap<>();
+    public Cache<String, Bucket> rateLimitBuckets(MeterRegistry meterRegistry) {
+        Cache<String, Bucket> buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout())
+                .recordStats()
+                .build();
+        // cache.size is the number of live buckets, cache.evictions the ones dropped for size or idleness
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit-buckets");
+        return buckets;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "local", matchIfMissing = true)
+    public RateLimitBucketFactory localBucketFactory() {
+        return clientKey -> createNewBucket();
     }
 
     public Bucket createNewBucket() {
-        Duration duration = parseDuration(refillDuration);
-        Bandwidth limit = Bandwidth.classic(capacity, Refill.intervally(refillTokens, duration));
         return Bucket.builder()
-                .addLimit(limit)
+                .addLimit(bandwidth())
                 .build();
     }
 
-    private Duration parseDuration(String duration) {
+    public BucketConfiguration bucketConfiguration() {
+        return BucketConfiguration.builder()
+                .addLimit(bandwidth())
+                .build();
+    }
+
+    private Bandwidth bandwidth() {
+        Duration duration = parseDuration(refillDuration);
+        return Bandwidth.classic(capacity, Refill.intervally(refillTokens, duration));
+    }
+
+    // An idle bucket may only be dropped once it would have refilled completely anyway,
+    // otherwise eviction would hand a throttled client a fresh allowance
+    public Duration idleTimeout() {
+        Duration refill = parseDuration(refillDuration);
+        long periodsToFill = (capacity + refillTokens - 1) / refillTokens;
+        Duration fullRefill = refill.multipliedBy(periodsToFill);
+        Duration idle = parseDuration(bucketIdleTimeout);
+        return idle.compareTo(fullRefill) >= 0 ? idle : fullRefill;
+    }
+
+    public Duration parseDuration(String duration) {
         if (duration.endsWith("s")) {
             return Duration.ofSeconds(Long.parseLong(duration.substring(0, duration.length() - 1)));
         } else if (duration.endsWith("m")) {
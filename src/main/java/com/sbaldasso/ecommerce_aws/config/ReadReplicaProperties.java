@@ -0,0 +1,32 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "read-replicas")
+@Data
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    private List<Replica> instances = new ArrayList<>();
+    // A replica further behind than this is skipped until it catches up
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    // How long a client's reads stay on the primary after it wrote
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    private int maximumPoolSize = 10;
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        // Default to spring.datasource credentials
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,60 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Short periodic jobs share the default scheduler (spring.task.scheduling.*). Jobs that can block
+// for seconds get their own thread through @Scheduled(scheduler = ...), so they never delay the rest.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String OUTBOX_RELAY_SCHEDULER = "outboxRelayScheduler";
+    public static final String KEY_FILTER_SCHEDULER = "keyFilterScheduler";
+    public static final String INVALIDATION_SENDER_SCHEDULER = "invalidationSenderScheduler";
+
+    // Any TaskScheduler bean turns Boot's default one off, so it is declared here as Boot would
+    @Bean(name = "taskScheduler")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = "taskScheduler")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskScheduler taskSchedulerVirtualThreads(SimpleAsyncTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = OUTBOX_RELAY_SCHEDULER)
+    public ThreadPoolTaskScheduler outboxRelayScheduler() {
+        return dedicated("outbox-relay-");
+    }
+
+    @Bean(name = KEY_FILTER_SCHEDULER)
+    public ThreadPoolTaskScheduler keyFilterScheduler() {
+        return dedicated("key-filter-");
+    }
+
+    // One thread also keeps each node's invalidations in sequence order
+    @Bean(name = INVALIDATION_SENDER_SCHEDULER)
+    public ThreadPoolTaskScheduler invalidationSenderScheduler() {
+        return dedicated("invalidation-sender-");
+    }
+
+    private static ThreadPoolTaskScheduler dedicated(String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
@@ -0,0 +1,19 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "search-cache")
+@Data
+public class SearchCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 5000;
+    // Bounds staleness the generation cannot see, such as a page read from a lagging replica
+    private Duration ttl = Duration.ofSeconds(30);
+    // Deeper pages (zero-based) are rarely repeated and always go to the database
+    private int maxPage = 4;
+}
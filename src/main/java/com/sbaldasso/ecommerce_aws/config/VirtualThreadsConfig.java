@@ -0,0 +1,34 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+// Active with spring.threads.virtual.enabled=true (Tomcat, @Scheduled and @Async then run on virtual threads)
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    // @Cacheable(sync = true) loads through Caffeine's compute, which runs the loader under a
+    // ConcurrentHashMap bin lock: a JDBC call there pins the carrier thread. In async mode the
+    // lock only guards installing a future, and the load itself runs on its own virtual thread.
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> virtualThreadCacheCustomizer(CacheProperties cacheProperties) {
+        return cacheManager -> {
+            String spec = cacheProperties.getCaffeine().getSpec();
+            Caffeine<Object, Object> builder = spec != null ? Caffeine.from(spec) : Caffeine.newBuilder();
+            cacheManager.setCaffeine(builder.executor(Executors.newVirtualThreadPerTaskExecutor()));
+            cacheManager.setAsyncCacheMode(true);
+            log.info("Virtual threads enabled: Caffeine caches switched to async mode");
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package com.sbaldasso.ecommerce_aws.config;
 
+import com.sbaldasso.ecommerce_aws.interceptor.ReadYourWritesInterceptor;
 import com.sbaldasso.ecommerce_aws.interceptor.RequestLoggingInterceptor;
+import com.sbaldasso.ecommerce_aws.interceptor.SimulatedLatencyInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -11,11 +14,17 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final RequestLoggingInterceptor requestLoggingInterceptor;
+    private final ObjectProvider<SimulatedLatencyInterceptor> simulatedLatencyInterceptor;
+    private final ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(requestLoggingInterceptor)
                 .addPathPatterns("/**")
                 .excludePathPatterns("/actuator/**", "/health/**");
+        simulatedLatencyInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/**"));
+        readYourWritesInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/**"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.sbaldasso.ecommerce_aws.controllers;
+
+import com.sbaldasso.ecommerce_aws.dto.ReservationBatchRequest;
+import com.sbaldasso.ecommerce_aws.dto.ReservationRequest;
+import com.sbaldasso.ecommerce_aws.dto.ReservationResponse;
+import com.sbaldasso.ecommerce_aws.services.InventoryService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Stock changes without a full PUT; 409 when there is not enough stock
+@RestController
+@RequestMapping("/api/products")
+public class InventoryController {
+
+    private final InventoryService svc;
+
+    public InventoryController(InventoryService svc) {
+        this.svc = svc;
+    }
+
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<ReservationResponse> reserve(@PathVariable Long id,
+                                                       @Valid @RequestBody ReservationRequest req) {
+        return ResponseEntity.ok(svc.reserve(id, req.getQuantity()));
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable Long id,
+                                                       @Valid @RequestBody ReservationRequest req) {
+        return ResponseEntity.ok(svc.release(id, req.getQuantity()));
+    }
+
+    // All or nothing: one short item fails the whole batch
+    @PostMapping("/reservations")
+    public ResponseEntity<List<ReservationResponse>> reserveAll(@Valid @RequestBody ReservationBatchRequest req) {
+        return ResponseEntity.ok(svc.reserveAll(req.getItems()));
+    }
+
+    @PostMapping("/reservations/release")
+    public ResponseEntity<List<ReservationResponse>> releaseAll(@Valid @RequestBody ReservationBatchRequest req) {
+        return ResponseEntity.ok(svc.releaseAll(req.getItems()));
+    }
+}
@@ -1,22 +1,56 @@
 package com.sbaldasso.ecommerce_aws.controllers;
 
+import com.sbaldasso.ecommerce_aws.dto.CursorPage;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchRequest;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchResponse;
+import com.sbaldasso.ecommerce_aws.dto.ProductImportResponse;
 import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
 import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.services.ProductBatchService;
+import com.sbaldasso.ecommerce_aws.services.ProductBodyCache;
+import com.sbaldasso.ecommerce_aws.services.ProductExportService;
+import com.sbaldasso.ecommerce_aws.services.ProductImportService;
+import com.sbaldasso.ecommerce_aws.services.ProductListing;
+import com.sbaldasso.ecommerce_aws.services.ProductSearchCache;
 import com.sbaldasso.ecommerce_aws.services.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 500;
+
     private final ProductService svc;
+    private final ProductBatchService batchSvc;
+    private final ProductExportService exportSvc;
+    private final ProductImportService importSvc;
+    private final ProductBodyCache bodies;
+    private final ProductSearchCache searchCache;
 
-    public ProductController(ProductService svc) {
+    public ProductController(ProductService svc, ProductBatchService batchSvc,
+                             ProductExportService exportSvc, ProductImportService importSvc,
+                             ProductBodyCache bodies, ProductSearchCache searchCache) {
         this.svc = svc;
+        this.batchSvc = batchSvc;
+        this.exportSvc = exportSvc;
+        this.importSvc = importSvc;
+        this.bodies = bodies;
+        this.searchCache = searchCache;
     }
 
     @PostMapping
@@ -24,23 +58,147 @@ public class ProductController {
         return ResponseEntity.ok(svc.create(req));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> batch(@Valid @RequestBody ProductBatchRequest req) {
+        return ResponseEntity.ok(batchSvc.upsert(req.getItems()));
+    }
+
+    // Bulk upsert by SKU from a streamed body: text/csv with a sku,name,description,price,quantity
+    // header, or application/x-ndjson with one product object per line
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(HttpServletRequest request) throws IOException {
+        ProductImportService.Format format = ProductImportService.Format.fromContentType(request.getContentType());
+        return ResponseEntity.ok(importSvc.importProducts(format, request.getInputStream()));
+    }
+
+    // Served from pre-serialized bytes: ETag, Last-Modified and Content-Length are stored with the
+    // body, so a conditional request gets its 304 and a hit is written without touching Jackson
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> get(@PathVariable Long id) {
-        return ResponseEntity.ok(svc.findById(id));
+    public ResponseEntity<byte[]> get(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest
+    ) {
+        ProductBodyCache.ProductBody body = bodies.get(id);
+        boolean gzipped = body.gzip() != null && acceptsGzip(acceptEncoding);
+        // Each encoding is its own representation with its own ETag, validated on its own
+        String etag = gzipped ? body.gzipEtag() : body.etag();
+        if (webRequest.checkNotModified(etag, body.lastModified())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag);
+        if (body.lastModified() >= 0) {
+            response.lastModified(body.lastModified());
+        }
+        if (body.gzip() == null) {
+            return response.contentLength(body.json().length).body(body.json());
+        }
+        response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (!gzipped) {
+            return response.contentLength(body.json().length).body(body.json());
+        }
+        // An existing Content-Encoding also keeps server.compression from gzipping it again
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .contentLength(body.gzip().length)
+                .body(body.gzip());
     }
 
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> list(
             @RequestParam(required = false) String q,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest
+    ) {
+        ProductListing listing = searchCache.search(q, PageRequest.of(page, size));
+        // ETag only: the newest row's timestamp misses deletions and page shifts, so a Last-Modified
+        // here would let If-Modified-Since alone produce a false 304. A 304 skips serialization.
+        if (webRequest.checkNotModified(listing.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok(listing.toResponse());
+    }
+
+    // Keyset pagination: latency stays flat at any depth, the total is only counted on request
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<ProductResponse>> scroll(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal
     ) {
-        return ResponseEntity.ok(svc.search(q, PageRequest.of(page, size)));
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return ResponseEntity.ok(svc.scroll(q, sort, cursor, pageSize, withTotal));
+    }
+
+    // Full catalog as NDJSON (default) or CSV, written while the rows are read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        ProductExportService.Format exportFormat = ProductExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("products." + exportFormat.extension())
+                        .build()
+                        .toString())
+                .body(out -> exportSvc.export(exportFormat, out));
     }
 
+    // If-Match with the ETag from a previous GET turns the update into compare-and-set (412 on mismatch)
     @PutMapping("/{id}")
-    public ResponseEntity<ProductResponse> update(@PathVariable Long id, @Valid @RequestBody ProductRequest req) {
-        return ResponseEntity.ok(svc.update(id, req));
+    public ResponseEntity<ProductResponse> update(
+            @PathVariable Long id,
+            @Valid @RequestBody ProductRequest req,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        ProductResponse updated = svc.update(id, req, expectedVersions(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(etag(updated.getVersion()))
+                .body(updated);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static String etag(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    // null for an absent header or "*"; weak or malformed tags never match (If-Match is a strong comparison).
+    // The gzip representation's tag names the same version.
+    private static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                String opaque = value.substring(1, value.length() - 1);
+                if (opaque.endsWith(ProductBodyCache.GZIP_ETAG_SUFFIX)) {
+                    opaque = opaque.substring(0, opaque.length() - ProductBodyCache.GZIP_ETAG_SUFFIX.length());
+                }
+                try {
+                    versions.add(Long.parseLong(opaque));
+                } catch (NumberFormatException ignored) {
+                    // not one of our tags
+                }
+            }
+        }
+        return versions;
     }
 
     @DeleteMapping("/{id}")
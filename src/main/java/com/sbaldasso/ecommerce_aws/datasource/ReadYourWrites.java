@@ -0,0 +1,39 @@
+package com.sbaldasso.ecommerce_aws.datasource;
+
+import java.util.function.Supplier;
+
+// Pins the current thread's read-only transactions to the primary
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    // Runs read on the primary even inside a read-only transaction, provided no statement has
+    // run in it yet (the connection is picked on the first one). Pinning is per thread, so this
+    // belongs on the thread that does the read, not on the one that started the request.
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (isPinned()) {
+            return read.get();
+        }
+        pin();
+        try {
+            return read.get();
+        } finally {
+            clear();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.sbaldasso.ecommerce_aws.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "read-replicas", name = "enabled", havingValue = "true")
+public class ReplicaHealthMonitor {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaHealthMonitor(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    // Replicas start out unhealthy, so the first check runs right away
+    @Scheduled(fixedDelayString = "#{@readReplicaProperties.healthCheckInterval.toMillis()}")
+    public void check() {
+        routingDataSource.checkReplicas();
+    }
+}
@@ -0,0 +1,151 @@
+package com.sbaldasso.ecommerce_aws.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// readOnly transactions go round robin to the healthy replicas; writes, pinned reads and reads
+// with no healthy replica go to the primary. The key is resolved when the connection is
+// fetched, so this must sit behind a LazyConnectionDataSourceProxy.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    // Zero when the replica has replayed everything it received; seconds since the last replayed
+    // commit otherwise. A server that is not in recovery counts as caught up.
+    static final String LAG_QUERY = "SELECT CASE "
+            + "WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter pinnedRoutes;
+    private final Counter fallbackRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    Duration maxLag,
+                                    MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            targets.put(name, dataSource);
+            this.replicas.add(new Replica(name, dataSource));
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+
+        this.primaryRoutes = route(meterRegistry, "primary");
+        this.replicaRoutes = route(meterRegistry, "replica");
+        this.pinnedRoutes = route(meterRegistry, "pinned");
+        this.fallbackRoutes = route(meterRegistry, "fallback");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        if (ReadYourWrites.isPinned()) {
+            pinnedRoutes.increment();
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replicaRoutes.increment();
+                return replica.name;
+            }
+        }
+        fallbackRoutes.increment();
+        return PRIMARY;
+    }
+
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            replica.check(maxLagSeconds);
+        }
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing")
+                .description("Connections handed out, by routing decision")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // Unhealthy until the first check has passed
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void check(double maxLagSeconds) {
+            boolean wasHealthy = healthy;
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+                try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                    rs.next();
+                    lagSeconds = rs.getDouble(1);
+                }
+                healthy = lagSeconds <= maxLagSeconds;
+                if (wasHealthy && !healthy) {
+                    log.warn("Replica {} is {}s behind; reads fall back to the primary", name, lagSeconds);
+                }
+            } catch (SQLException e) {
+                lagSeconds = Double.NaN;
+                healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} failed its health check; reads fall back to the primary", name, e);
+                }
+            }
+            if (!wasHealthy && healthy) {
+                log.info("Replica {} is serving reads ({}s behind)", name, lagSeconds);
+            }
+        }
+    }
+}
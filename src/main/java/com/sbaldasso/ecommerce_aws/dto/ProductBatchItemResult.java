@@ -0,0 +1,20 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductBatchItemResult {
+    public enum Status { CREATED, UPDATED, FAILED }
+
+    private int index;
+    private String sku;
+    private Long id;
+    private Status status;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchRequest {
+    @Valid
+    @NotEmpty
+    @Size(max = 5000)
+    private List<ProductRequest> items;
+}
@@ -0,0 +1,17 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchResponse {
+    private int created;
+    private int updated;
+    private int failed;
+    private List<ProductBatchItemResult> results;
+}
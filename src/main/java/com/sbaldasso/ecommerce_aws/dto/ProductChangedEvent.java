@@ -0,0 +1,15 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+// In-process notification, published inside the writing transaction
+@Value
+public class ProductChangedEvent {
+    // IMPORTED carries no ids: any product may have changed
+    public enum Type { CREATED, UPDATED, DELETED, IMPORTED }
+
+    Type type;
+    List<Long> ids;
+}
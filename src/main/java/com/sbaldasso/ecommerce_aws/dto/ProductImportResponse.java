@@ -0,0 +1,17 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportResponse {
+    private String importId;
+    private long received;
+    private long created;
+    private long updated;
+    // Invalid rows, repeated SKUs (the last occurrence wins) and rows identical to the stored product
+    private long skipped;
+}
@@ -0,0 +1,19 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Broadcast to every node after a product write. Sequences are per sending node and start at 1;
+// an empty id list means "evict everything", created marks ids that no node can have cached yet.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductInvalidationMessage {
+    private String node;
+    private long sequence;
+    private List<Long> ids;
+    private boolean created;
+}
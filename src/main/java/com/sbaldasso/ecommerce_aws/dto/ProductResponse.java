@@ -19,5 +19,6 @@ public class ProductResponse {
     private Integer quantity;
     private Instant createdAt;
     private Instant updatedAt;
+    private Long version;
 }
 
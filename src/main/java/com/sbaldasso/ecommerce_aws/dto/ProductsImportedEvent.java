@@ -0,0 +1,18 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One message per import instead of one ProductCreatedEvent per row
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductsImportedEvent {
+    private String importId;
+    private long created;
+    private long updated;
+    private Instant completedAt;
+}
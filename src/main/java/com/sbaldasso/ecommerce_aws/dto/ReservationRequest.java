@@ -0,0 +1,16 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationRequest {
+    @Min(1)
+    @Max(1_000_000)
+    private int quantity;
+}
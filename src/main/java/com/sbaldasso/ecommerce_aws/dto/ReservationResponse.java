@@ -0,0 +1,15 @@
+package com.sbaldasso.ecommerce_aws.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationResponse {
+    private Long productId;
+    private int quantity;
+    // Stock left in Postgres; null for hot products, whose stock is partly leased in memory
+    private Integer remaining;
+}
@@ -0,0 +1,50 @@
+package com.sbaldasso.ecommerce_aws.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_events")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_id_seq")
+    @SequenceGenerator(name = "outbox_events_id_seq", sequenceName = "outbox_events_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String aggregateType;
+
+    @Column(nullable = false, length = 100)
+    private String aggregateId;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    @Column(length = 100)
+    private String contentType;
+
+    // JSON object of the AMQP headers produced by the message converter
+    @Column(columnDefinition = "TEXT")
+    private String headers;
+
+    @Column(nullable = false)
+    private byte[] payload;
+
+    // Times the broker returned or nacked this message; outbox_events.claimed_until is only
+    // touched by the relay's native queries and is not mapped
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -20,8 +20,10 @@ import java.time.Instant;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Product {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (see V4 migration)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_seq")
+    @SequenceGenerator(name = "products_id_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -45,4 +47,8 @@ public class Product {
 
     @LastModifiedDate
     private Instant updatedAt;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
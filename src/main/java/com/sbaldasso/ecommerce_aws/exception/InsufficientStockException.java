@@ -0,0 +1,7 @@
+package com.sbaldasso.ecommerce_aws.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.sbaldasso.ecommerce_aws.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.sbaldasso.ecommerce_aws.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
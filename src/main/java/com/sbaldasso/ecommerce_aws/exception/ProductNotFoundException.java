@@ -0,0 +1,15 @@
+package com.sbaldasso.ecommerce_aws.exception;
+
+// Still an IllegalArgumentException, so it keeps mapping to 404. Thrown for every probe of a
+// random id, so it skips capturing a stack trace nobody reads.
+public class ProductNotFoundException extends IllegalArgumentException {
+
+    public ProductNotFoundException() {
+        super("Product not found");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
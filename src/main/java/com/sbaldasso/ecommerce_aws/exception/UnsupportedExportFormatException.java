@@ -0,0 +1,7 @@
+package com.sbaldasso.ecommerce_aws.exception;
+
+public class UnsupportedExportFormatException extends RuntimeException {
+    public UnsupportedExportFormatException(String message) {
+        super(message);
+    }
+}
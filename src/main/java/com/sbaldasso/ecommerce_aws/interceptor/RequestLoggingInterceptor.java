@@ -1,26 +1,26 @@
 package com.sbaldasso.ecommerce_aws.interceptor;
 
-import com.sbaldasso.ecommerce_aws.config.CloudWatchMetricsService;
+import com.sbaldasso.ecommerce_aws.metrics.RequestMetricsAggregator;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import org.springframework.web.servlet.HandlerMapping;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RequestLoggingInterceptor implements HandlerInterceptor {
 
-    private final CloudWatchMetricsService metricsService;
+    private final RequestMetricsAggregator metricsAggregator;
     private static final String START_TIME = "startTime";
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, 
                             Object handler) {
-        request.setAttribute(START_TIME, System.currentTimeMillis());
+        request.setAttribute(START_TIME, System.nanoTime());
         
         log.info("Request: {} {} from IP: {}", 
                 request.getMethod(), 
@@ -35,21 +35,17 @@ public class RequestLoggingInterceptor implements HandlerInterceptor {
                                Object handler, Exception ex) {
         Long startTime = (Long) request.getAttribute(START_TIME);
         if (startTime != null) {
-            long duration = System.currentTimeMillis() - startTime;
+            long durationNanos = System.nanoTime() - startTime;
             
             log.info("Response: {} {} - Status: {} - Duration: {}ms",
                     request.getMethod(),
                     request.getRequestURI(),
                     response.getStatus(),
-                    duration);
+                    durationNanos / 1_000_000);
             
-            // Enviar métrica para CloudWatch
-            metricsService.publishMetric("RequestDuration", duration, StandardUnit.MILLISECONDS);
-            metricsService.publishMetric("RequestCount", 1.0, StandardUnit.COUNT);
-            
-            if (response.getStatus() >= 400) {
-                metricsService.publishMetric("ErrorCount", 1.0, StandardUnit.COUNT);
-            }
+            // Agregado em memória; o CloudWatchMetricsService envia em lote
+            String route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            metricsAggregator.record(request.getMethod(), route, response.getStatus(), durationNanos);
         }
     }
-}
\ No newline at end of file
+}
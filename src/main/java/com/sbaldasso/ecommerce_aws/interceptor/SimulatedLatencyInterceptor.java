@@ -0,0 +1,30 @@
+package com.sbaldasso.ecommerce_aws.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+// Load-test only: blocks the request thread like a slow downstream call (AWS SDK, broker) would,
+// without holding a database connection
+@Component
+@Profile("loadtest")
+public class SimulatedLatencyInterceptor implements HandlerInterceptor {
+
+    private final Duration latency;
+
+    public SimulatedLatencyInterceptor(@Value("${loadtest.downstream-latency:200ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        Thread.sleep(latency);
+        return true;
+    }
+}
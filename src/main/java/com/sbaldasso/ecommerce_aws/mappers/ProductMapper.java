@@ -25,6 +25,7 @@ public class ProductMapper {
         r.setQuantity(p.getQuantity());
         r.setCreatedAt(p.getCreatedAt());
         r.setUpdatedAt(p.getUpdatedAt());
+        r.setVersion(p.getVersion());
         return r;
     }
 
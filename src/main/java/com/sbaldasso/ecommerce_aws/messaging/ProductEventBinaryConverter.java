@@ -0,0 +1,94 @@
+package com.sbaldasso.ecommerce_aws.messaging;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Hand-written encoding for product events: no field names, no type header. Layout (v1):
+//   byte    schema version
+//   byte    event kind (1 = created)
+//   varint  product id
+//   varint  sku length + 1 (0 = null), then UTF-8 sku bytes
+// New fields go into a new version; readers reject versions they don't know.
+public class ProductEventBinaryConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-product-event";
+    public static final int VERSION = 1;
+
+    private static final int KIND_CREATED = 1;
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof ProductCreatedEvent event) || event.getId() == null) {
+            throw new MessageConversionException("Cannot encode " + object + " as " + CONTENT_TYPE);
+        }
+        byte[] sku = event.getSku() == null ? null : event.getSku().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + (sku == null ? 0 : sku.length));
+        out.write(VERSION);
+        out.write(KIND_CREATED);
+        writeVarLong(out, event.getId());
+        if (sku == null) {
+            out.write(0);
+        } else {
+            writeVarLong(out, sku.length + 1L);
+            out.writeBytes(sku);
+        }
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(out.size());
+        return new Message(out.toByteArray(), messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        ByteBuffer in = ByteBuffer.wrap(message.getBody());
+        try {
+            int version = in.get();
+            if (version != VERSION) {
+                throw new MessageConversionException("Unsupported product event version " + version);
+            }
+            int kind = in.get();
+            if (kind != KIND_CREATED) {
+                throw new MessageConversionException("Unknown product event kind " + kind);
+            }
+            long id = readVarLong(in);
+            int skuLength = (int) readVarLong(in) - 1;
+            String sku = null;
+            if (skuLength >= 0) {
+                sku = new String(in.array(), in.position(), skuLength, StandardCharsets.UTF_8);
+                in.position(in.position() + skuLength);
+            }
+            return new ProductCreatedEvent(id, sku);
+        } catch (RuntimeException e) {
+            if (e instanceof MessageConversionException conversion) {
+                throw conversion;
+            }
+            throw new MessageConversionException("Malformed product event", e);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new MessageConversionException("Malformed varint");
+    }
+}
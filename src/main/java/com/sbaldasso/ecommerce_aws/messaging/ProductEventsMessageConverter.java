@@ -0,0 +1,34 @@
+package com.sbaldasso.ecommerce_aws.messaging;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+// Reads JSON and the binary product event format side by side, chosen by each message's content
+// type, so producers can be switched one at a time. Writes product events in the configured
+// encoding and everything else as JSON.
+public class ProductEventsMessageConverter extends ContentTypeDelegatingMessageConverter {
+
+    private final boolean binary;
+
+    public ProductEventsMessageConverter(boolean binary) {
+        this(new Jackson2JsonMessageConverter(), binary);
+    }
+
+    private ProductEventsMessageConverter(Jackson2JsonMessageConverter json, boolean binary) {
+        super(json);
+        this.binary = binary;
+        addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        addDelegate(ProductEventBinaryConverter.CONTENT_TYPE, new ProductEventBinaryConverter());
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (binary && object instanceof ProductCreatedEvent) {
+            messageProperties.setContentType(ProductEventBinaryConverter.CONTENT_TYPE);
+        }
+        return super.toMessage(object, messageProperties);
+    }
+}
@@ -0,0 +1,191 @@
+package com.sbaldasso.ecommerce_aws.metrics;
+
+import com.sbaldasso.ecommerce_aws.config.AwsProperties;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// In-memory request metrics: the request thread only bumps lock-free counters. drain() rolls
+// them into per-route latency histograms (Values/Counts) and an overall StatisticSet.
+@Component
+public class RequestMetricsAggregator {
+
+    static final String OTHER_ROUTE = "OTHER";
+
+    // Upper bounds in milliseconds; the last bucket collects everything above 10s
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = BUCKET_BOUNDS_MS[i] * 1_000_000L;
+        }
+    }
+
+    private final Map<String, Map<String, RouteStats>> routes = new ConcurrentHashMap<>();
+    private final LongAdder routeCount = new LongAdder();
+    private final int maxRoutes;
+
+    public RequestMetricsAggregator(AwsProperties awsProperties) {
+        this.maxRoutes = awsProperties.getCloudwatch().getMaxRoutes();
+    }
+
+    public void record(String method, String route, int status, long durationNanos) {
+        statsFor(method, route == null ? OTHER_ROUTE : route).record(status, durationNanos);
+    }
+
+    public List<MetricDatum> drain(Instant timestamp) {
+        List<MetricDatum> data = new ArrayList<>();
+        long totalCount = 0;
+        long totalErrors = 0;
+        long totalNanos = 0;
+        long minNanos = Long.MAX_VALUE;
+        long maxNanos = 0;
+
+        for (Map.Entry<String, Map<String, RouteStats>> byRoute : routes.entrySet()) {
+            for (Map.Entry<String, RouteStats> byMethod : byRoute.getValue().entrySet()) {
+                RouteSnapshot snapshot = byMethod.getValue().snapshotAndReset();
+                if (snapshot.count == 0) {
+                    continue;
+                }
+                List<Dimension> dimensions = List.of(
+                        Dimension.builder().name("Route").value(byRoute.getKey()).build(),
+                        Dimension.builder().name("Method").value(byMethod.getKey()).build());
+
+                data.add(snapshot.latencyDatum(dimensions, timestamp));
+                data.add(countDatum("RequestCount", snapshot.count, dimensions, timestamp));
+                if (snapshot.errors > 0) {
+                    data.add(countDatum("ErrorCount", snapshot.errors, dimensions, timestamp));
+                }
+
+                totalCount += snapshot.count;
+                totalErrors += snapshot.errors;
+                totalNanos += snapshot.sumNanos;
+                minNanos = Math.min(minNanos, snapshot.minNanos);
+                maxNanos = Math.max(maxNanos, snapshot.maxNanos);
+            }
+        }
+
+        if (totalCount > 0) {
+            data.add(MetricDatum.builder()
+                    .metricName("RequestDuration")
+                    .unit(StandardUnit.MILLISECONDS)
+                    .timestamp(timestamp)
+                    .statisticValues(StatisticSet.builder()
+                            .sampleCount((double) totalCount)
+                            .sum(toMillis(totalNanos))
+                            .minimum(toMillis(minNanos))
+                            .maximum(toMillis(maxNanos))
+                            .build())
+                    .build());
+            data.add(countDatum("RequestCount", totalCount, List.of(), timestamp));
+            data.add(countDatum("ErrorCount", totalErrors, List.of(), timestamp));
+        }
+        return data;
+    }
+
+    private RouteStats statsFor(String method, String route) {
+        Map<String, RouteStats> byMethod = routes.get(route);
+        if (byMethod == null) {
+            if (routeCount.sum() >= maxRoutes) {
+                // Unmatched or unbounded paths must not explode metric cardinality
+                byMethod = routes.computeIfAbsent(OTHER_ROUTE, k -> new ConcurrentHashMap<>());
+            } else {
+                byMethod = routes.computeIfAbsent(route, k -> {
+                    routeCount.increment();
+                    return new ConcurrentHashMap<>();
+                });
+            }
+        }
+        RouteStats stats = byMethod.get(method);
+        return stats != null ? stats : byMethod.computeIfAbsent(method, k -> new RouteStats());
+    }
+
+    private static MetricDatum countDatum(String name, long count, List<Dimension> dimensions, Instant timestamp) {
+        return MetricDatum.builder()
+                .metricName(name)
+                .unit(StandardUnit.COUNT)
+                .value((double) count)
+                .dimensions(dimensions)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    static final class RouteStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_NANOS.length + 1);
+
+        void record(int status, long durationNanos) {
+            count.increment();
+            if (status >= 400) {
+                errors.increment();
+            }
+            sumNanos.add(durationNanos);
+            minNanos.accumulate(durationNanos);
+            maxNanos.accumulate(durationNanos);
+            buckets.incrementAndGet(bucketIndex(durationNanos));
+        }
+
+        // Concurrent records may land in either interval; none are lost
+        RouteSnapshot snapshotAndReset() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.getAndSet(i, 0);
+            }
+            return new RouteSnapshot(count.sumThenReset(), errors.sumThenReset(), sumNanos.sumThenReset(),
+                    minNanos.getThenReset(), maxNanos.getThenReset(), counts);
+        }
+
+        private static int bucketIndex(long durationNanos) {
+            for (int i = 0; i < BUCKET_BOUNDS_NANOS.length; i++) {
+                if (durationNanos <= BUCKET_BOUNDS_NANOS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_NANOS.length;
+        }
+    }
+
+    record RouteSnapshot(long count, long errors, long sumNanos, long minNanos, long maxNanos, long[] buckets) {
+
+        MetricDatum latencyDatum(List<Dimension> dimensions, Instant timestamp) {
+            List<Double> values = new ArrayList<>();
+            List<Double> counts = new ArrayList<>();
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] == 0) {
+                    continue;
+                }
+                double upperBound = i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : toMillis(maxNanos);
+                values.add(upperBound);
+                counts.add((double) buckets[i]);
+            }
+            return MetricDatum.builder()
+                    .metricName("RequestLatency")
+                    .unit(StandardUnit.MILLISECONDS)
+                    .values(values)
+                    .counts(counts)
+                    .dimensions(dimensions)
+                    .timestamp(timestamp)
+                    .build();
+        }
+    }
+}
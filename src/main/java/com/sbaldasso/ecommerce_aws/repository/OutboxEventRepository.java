@@ -0,0 +1,44 @@
+package com.sbaldasso.ecommerce_aws.repository;
+
+import com.sbaldasso.ecommerce_aws.entities.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Claims the next unclaimed (or expired) rows and returns them. SKIP LOCKED lets every ECS task
+    // run a relay without double-publishing; the locks only last until the claim commits.
+    @Query(value = "UPDATE outbox_events SET claimed_until = now() + :claimMillis * interval '1 millisecond' "
+            + "WHERE id IN (SELECT id FROM outbox_events "
+            + "WHERE claimed_until IS NULL OR claimed_until < now() "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING *", nativeQuery = true)
+    List<OutboxEvent> claimNextBatch(@Param("limit") int limit, @Param("claimMillis") long claimMillis);
+
+    // Keeps the rows claimed for delayMillis so the retry backs off; rejections also count an attempt
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET attempts = attempts + :attempts, "
+            + "claimed_until = now() + :delayMillis * interval '1 millisecond' "
+            + "WHERE id IN (:ids)", nativeQuery = true)
+    int retryLater(@Param("ids") Collection<Long> ids, @Param("attempts") int attempts,
+                   @Param("delayMillis") long delayMillis);
+
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM outbox_events WHERE id IN (:ids) RETURNING *) "
+            + "INSERT INTO outbox_dead_letters (id, aggregate_type, aggregate_id, exchange, routing_key, "
+            + "content_type, headers, payload, attempts, created_at) "
+            + "SELECT id, aggregate_type, aggregate_id, exchange, routing_key, content_type, headers, payload, "
+            + "attempts + 1, created_at FROM moved", nativeQuery = true)
+    int moveToDeadLetters(@Param("ids") Collection<Long> ids);
+
+    @Query("select min(e.createdAt) from OutboxEvent e")
+    Instant findOldestCreatedAt();
+}
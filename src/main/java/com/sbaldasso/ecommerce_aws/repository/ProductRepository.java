@@ -1,13 +1,98 @@
 package com.sbaldasso.ecommerce_aws.repository;
 
 import com.sbaldasso.ecommerce_aws.entities.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     boolean existsBySku(String sku);
-    Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    // Prefix full-text match on name/sku/description (GIN on search_vector) or fuzzy word match
+    // on name/sku (GIN trigram), ranked by text relevance and then by name similarity.
+    // tsQuery must come from ProductSearchQuery.prefixTsQuery.
+    @Query(value = "SELECT p.* FROM products p "
+            + "WHERE p.search_vector @@ to_tsquery('simple', :tsQuery) OR :q <% p.name OR :q <% p.sku "
+            + "ORDER BY ts_rank_cd(p.search_vector, to_tsquery('simple', :tsQuery)) DESC, "
+            + "word_similarity(:q, p.name) DESC, p.id",
+            countQuery = "SELECT count(*) FROM products p "
+                    + "WHERE p.search_vector @@ to_tsquery('simple', :tsQuery) OR :q <% p.name OR :q <% p.sku",
+            nativeQuery = true)
+    Page<Product> search(@Param("tsQuery") String tsQuery, @Param("q") String q, Pageable pageable);
+
+    @Query("select count(p) from Product p where p.name ilike concat('%', :q, '%')")
+    long countByNameContaining(@Param("q") String q);
+
+    // Keyset pagination: pass an unsorted Pageable to cap the row count, no COUNT query is issued.
+    // The ILIKE filter is served by the trigram index on name.
+    @Query("select p from Product p where p.name ilike concat('%', :q, '%') "
+            + "and p.id > :afterId order by p.id")
+    List<Product> findNextById(@Param("q") String q, @Param("afterId") long afterId, Pageable limit);
+
+    @Query("select p from Product p where p.name ilike concat('%', :q, '%') "
+            + "and p.name >= :afterName and (p.name > :afterName or p.id > :afterId) order by p.name, p.id")
+    List<Product> findNextByName(@Param("q") String q, @Param("afterName") String afterName,
+                                 @Param("afterId") long afterId, Pageable limit);
+
+    // Forward-only scan for exports: with a fetch size, pgjdbc reads through a server-side cursor
+    // (inside a transaction) instead of buffering the whole result. The caller must close the stream.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllByOrderById();
+
+    // Single round trip writes: the statement applies the change and returns the stored row.
+    // The casts keep a null description typed as text.
+    @Query(value = "UPDATE products SET name = :name, description = CAST(:description AS text), "
+            + "price = :price, quantity = :quantity, updated_at = now(), version = version + 1 "
+            + "WHERE id = :id RETURNING *", nativeQuery = true)
+    Optional<Product> updateReturning(@Param("id") Long id, @Param("name") String name,
+                                      @Param("description") String description, @Param("price") BigDecimal price,
+                                      @Param("quantity") Integer quantity);
+
+    // Compare-and-set for If-Match: no row comes back when the version has moved on
+    @Query(value = "UPDATE products SET name = :name, description = CAST(:description AS text), "
+            + "price = :price, quantity = :quantity, updated_at = now(), version = version + 1 "
+            + "WHERE id = :id AND version IN (:versions) RETURNING *", nativeQuery = true)
+    Optional<Product> updateReturningIfVersionIn(@Param("id") Long id, @Param("name") String name,
+                                                 @Param("description") String description,
+                                                 @Param("price") BigDecimal price,
+                                                 @Param("quantity") Integer quantity,
+                                                 @Param("versions") Collection<Long> versions);
+
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Bulk delete: no entity is loaded first, the returned count tells whether the row existed
+    @Modifying
+    @Query("delete from Product p where p.id = :id")
+    int deleteRowById(@Param("id") Long id);
+
+    // Conditional decrement: concurrent buyers serialize on the row lock and none can take the
+    // quantity below zero. Empty when the product is missing or short on stock.
+    @Query(value = "UPDATE products SET quantity = quantity - :n, updated_at = now(), version = version + 1 "
+            + "WHERE id = :id AND quantity >= :n RETURNING quantity", nativeQuery = true)
+    Optional<Integer> reserveReturning(@Param("id") Long id, @Param("n") int n);
+
+    @Query(value = "UPDATE products SET quantity = quantity + :n, updated_at = now(), version = version + 1 "
+            + "WHERE id = :id RETURNING quantity", nativeQuery = true)
+    Optional<Integer> releaseReturning(@Param("id") Long id, @Param("n") int n);
 }
@@ -0,0 +1,34 @@
+package com.sbaldasso.ecommerce_aws.repository;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+public final class ProductSearchQuery {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TERMS = 8;
+
+    private ProductSearchQuery() {
+    }
+
+    // "blue sho" -> "blue:* & sho:*". Only letters and digits survive, so the result is always
+    // valid to_tsquery syntax. Returns null when the input has no searchable terms.
+    public static String prefixTsQuery(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringJoiner query = new StringJoiner(" & ");
+        int terms = 0;
+        for (String term : NON_WORD.split(input.toLowerCase(Locale.ROOT))) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            query.add(term + ":*");
+            if (++terms == MAX_TERMS) {
+                break;
+            }
+        }
+        return terms == 0 ? null : query.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+public final class ClientIpResolver {
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private ClientIpResolver() {
+    }
+
+    // Each proxy appends the address it received the request from, so only the rightmost
+    // trustedProxies hops are ours; anything left of them is whatever the client sent and is
+    // ignored. The client is the trustedProxies-th hop from the right. With no trusted proxies,
+    // or a header too short or blank at that hop, the socket address is used instead.
+    // Avoids split(): the hop is found with lastIndexOf and one substring at most.
+    public static String resolve(HttpServletRequest request, int trustedProxies) {
+        if (trustedProxies <= 0) {
+            return request.getRemoteAddr();
+        }
+        String xfHeader = request.getHeader(X_FORWARDED_FOR);
+        if (xfHeader == null || xfHeader.isEmpty()) {
+            return request.getRemoteAddr();
+        }
+        int end = xfHeader.length();
+        int comma = xfHeader.lastIndexOf(',');
+        for (int hop = 1; hop < trustedProxies; hop++) {
+            if (comma < 0) {
+                return request.getRemoteAddr();
+            }
+            end = comma;
+            comma = xfHeader.lastIndexOf(',', comma - 1);
+        }
+        int start = comma + 1;
+        while (start < end && xfHeader.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && xfHeader.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return request.getRemoteAddr();
+        }
+        return start == 0 && end == xfHeader.length() ? xfHeader : xfHeader.substring(start, end);
+    }
+}
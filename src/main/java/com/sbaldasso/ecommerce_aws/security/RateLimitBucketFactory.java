@@ -0,0 +1,10 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import io.github.bucket4j.Bucket;
+
+// Creates the bucket for a client key; the filter caches the result per key
+@FunctionalInterface
+public interface RateLimitBucketFactory {
+
+    Bucket create(String clientKey);
+}
@@ -0,0 +1,37 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import com.sbaldasso.ecommerce_aws.config.RateLimitConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+// Deletes shared buckets nobody has touched for the idle timeout, mirroring the local cache expiry
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "mode", havingValue = "distributed")
+public class RateLimitBucketJanitor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RateLimitConfig rateLimitConfig;
+
+    public RateLimitBucketJanitor(JdbcTemplate jdbcTemplate, RateLimitConfig rateLimitConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rateLimitConfig = rateLimitConfig;
+    }
+
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void purgeIdleBuckets() {
+        Instant cutoff = Instant.now().minus(rateLimitConfig.idleTimeout());
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM " + rateLimitConfig.getDistributed().getTableName() + " WHERE updated_at < ?",
+                Timestamp.from(cutoff));
+        if (deleted > 0) {
+            log.debug("Purged {} idle rate limit buckets", deleted);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.sbaldasso.ecommerce_aws.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,17 +14,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.sbaldasso.ecommerce_aws.config.RateLimitConfig;
 
 import java.io.IOException;
-import java.util.Map;
 
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
     private final RateLimitConfig rateLimitConfig;
-    private final Map<String, Bucket> rateLimitBuckets;
+    private final Cache<String, Bucket> rateLimitBuckets;
+    private final RateLimitBucketFactory bucketFactory;
+    private final Counter rejected;
 
-    public RateLimitingFilter(RateLimitConfig rateLimitConfig, Map<String, Bucket> rateLimitBuckets) {
+    public RateLimitingFilter(RateLimitConfig rateLimitConfig, Cache<String, Bucket> rateLimitBuckets,
+                              RateLimitBucketFactory bucketFactory, MeterRegistry meterRegistry) {
         this.rateLimitConfig = rateLimitConfig;
         this.rateLimitBuckets = rateLimitBuckets;
+        this.bucketFactory = bucketFactory;
+        this.rejected = Counter.builder("rate.limit.rejected").register(meterRegistry);
     }
 
     @Override
@@ -33,26 +40,19 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             return;
         }
 
-        String clientIp = getClientIP(request);
-        Bucket bucket = rateLimitBuckets.computeIfAbsent(clientIp, k -> rateLimitConfig.createNewBucket());
+        String clientIp = ClientIpResolver.resolve(request, rateLimitConfig.getTrustedProxies());
+        Bucket bucket = rateLimitBuckets.get(clientIp, bucketFactory::create);
 
         if (bucket.tryConsume(1)) {
             filterChain.doFilter(request, response);
         } else {
+            rejected.increment();
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType("application/json");
             response.getWriter().write("{\"error\":\"Too many requests\",\"message\":\"Rate limit exceeded. Please try again later.\"}");
         }
     }
 
-    private String getClientIP(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
-        if (xfHeader == null) {
-            return request.getRemoteAddr();
-        }
-        return xfHeader.split(",")[0];
-    }
-
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
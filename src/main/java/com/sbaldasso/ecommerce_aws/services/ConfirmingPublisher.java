@@ -0,0 +1,147 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pipelined publishing with correlated confirms: a whole batch is written before any confirm is
+// awaited, so a batch costs about one broker round trip instead of one per message. Nacked
+// messages are re-sent. Returned (unroutable) messages and those still nacked after the retries
+// are reported as rejected; anything without a confirm in time is in neither set.
+@Slf4j
+@Component
+public class ConfirmingPublisher {
+
+    public record Outgoing(String id, String exchange, String routingKey, Message message) {
+    }
+
+    // rejected: the broker answered and will not take the message as is. Ids in neither set were
+    // never confirmed (broker unreachable or slow) and say nothing about the message itself.
+    public record Result(Set<String> confirmed, Set<String> rejected) {
+    }
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer acked;
+    private final Timer nacked;
+    private final Counter returned;
+    private final Counter timedOut;
+    private final Counter retried;
+
+    public ConfirmingPublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.acked = confirmTimer(meterRegistry, "ack");
+        this.nacked = confirmTimer(meterRegistry, "nack");
+        this.returned = Counter.builder("rabbitmq.publish.returned")
+                .description("Messages the broker could not route to any queue")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("rabbitmq.publish.timeouts").register(meterRegistry);
+        this.retried = Counter.builder("rabbitmq.publish.retried")
+                .description("Nacked messages sent again")
+                .register(meterRegistry);
+        Gauge.builder("rabbitmq.publish.in-flight", inFlight, AtomicInteger::get)
+                .description("Messages sent and still waiting for a confirm")
+                .register(meterRegistry);
+    }
+
+    // Each attempt waits at most confirmTimeout
+    public Result publish(List<Outgoing> batch, Duration confirmTimeout, int maxNackRetries) {
+        Set<String> confirmed = new HashSet<>(batch.size() * 2);
+        Set<String> rejected = new HashSet<>();
+        List<Outgoing> toSend = batch;
+        for (int attempt = 0; !toSend.isEmpty(); attempt++) {
+            List<CorrelationData> confirms = new ArrayList<>(toSend.size());
+            for (Outgoing outgoing : toSend) {
+                confirms.add(send(outgoing));
+            }
+
+            List<Outgoing> nacks = new ArrayList<>();
+            long deadline = System.nanoTime() + confirmTimeout.toNanos();
+            for (int i = 0; i < toSend.size(); i++) {
+                Outgoing outgoing = toSend.get(i);
+                CorrelationData correlation = confirms.get(i);
+                Boolean ack = awaitConfirm(correlation, deadline);
+                if (ack == null) {
+                    timedOut.increment();
+                } else if (!ack) {
+                    nacks.add(outgoing);
+                } else if (correlation.getReturned() != null) {
+                    returned.increment();
+                    rejected.add(outgoing.id());
+                    log.warn("Message {} was returned as unroutable: {}", outgoing.id(),
+                            correlation.getReturned().getReplyText());
+                } else {
+                    confirmed.add(outgoing.id());
+                }
+            }
+
+            if (nacks.isEmpty()) {
+                break;
+            }
+            if (attempt >= maxNackRetries) {
+                nacks.forEach(outgoing -> rejected.add(outgoing.id()));
+                break;
+            }
+            retried.increment(nacks.size());
+            toSend = nacks;
+        }
+        return new Result(confirmed, rejected);
+    }
+
+    private CorrelationData send(Outgoing outgoing) {
+        CorrelationData correlation = new CorrelationData(outgoing.id());
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        correlation.getFuture().whenComplete((confirm, error) -> {
+            inFlight.decrementAndGet();
+            if (confirm != null) {
+                (confirm.isAck() ? acked : nacked).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        try {
+            rabbitTemplate.send(outgoing.exchange(), outgoing.routingKey(), outgoing.message(), correlation);
+        } catch (RuntimeException e) {
+            // Never reached the broker, so no confirm will arrive
+            correlation.getFuture().completeExceptionally(e);
+        }
+        return correlation;
+    }
+
+    // true/false for ack/nack, null when no confirm arrived in time
+    private static Boolean awaitConfirm(CorrelationData correlation, long deadlineNanos) {
+        try {
+            long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+            return correlation.getFuture().get(remaining, TimeUnit.NANOSECONDS).isAck();
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static Timer confirmTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("rabbitmq.publish.confirm")
+                .description("Time from send to publisher confirm")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import java.io.IOException;
+import java.io.Writer;
+
+final class Csv {
+
+    private Csv() {
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break and double embedded quotes.
+    // A null value is written as an empty unquoted field, which COPY reads back as NULL.
+    static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,12 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import java.util.Map;
+
+// Where InventoryLedger takes leased units from and returns unused ones to
+public interface InventoryLeaseStore {
+
+    // Takes up to max units off the product's stock; returns how many were taken
+    int lease(long productId, int max);
+
+    void restock(Map<Long, Integer> units);
+}
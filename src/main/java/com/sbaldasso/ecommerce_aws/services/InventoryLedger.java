@@ -0,0 +1,163 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.InventoryProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hot products: instead of every buyer queueing on the same row lock, units are leased from
+// Postgres in blocks and handed out from per-thread stripes in memory. Leased units are already
+// gone from the table, so a crash can under-sell but never over-sell; unused units are returned
+// on every flush.
+@Slf4j
+@Component
+public class InventoryLedger {
+
+    // 16 ints = 64 bytes: each stripe sits on its own cache line
+    private static final int PAD = 16;
+
+    private final InventoryLeaseStore store;
+    private final int stripes;
+    private final int leaseSize;
+    private final Map<Long, HotProduct> products = new HashMap<>();
+
+    public InventoryLedger(InventoryLeaseStore store, InventoryProperties properties) {
+        this.store = store;
+        this.stripes = Math.max(1, properties.getStripes());
+        this.leaseSize = Math.max(1, properties.getLeaseSize());
+        // Fixed at startup, so lookups need no synchronization
+        for (Long productId : properties.getHotProducts()) {
+            products.put(productId, new HotProduct(productId, stripes));
+        }
+    }
+
+    public boolean isHot(Long productId) {
+        return products.containsKey(productId);
+    }
+
+    public boolean reserve(Long productId, int quantity) {
+        HotProduct product = products.get(productId);
+        int home = homeStripe();
+        return product.tryTake(home, quantity) || refillAndTake(product, home, quantity);
+    }
+
+    public void release(Long productId, int quantity) {
+        products.get(productId).add(homeStripe(), quantity);
+    }
+
+    @Scheduled(fixedDelayString = "#{@inventoryProperties.flushInterval.toMillis()}")
+    public void flush() {
+        Map<Long, Integer> unused = new HashMap<>();
+        for (HotProduct product : products.values()) {
+            product.lock.lock();
+            try {
+                int units = product.drain();
+                if (units > 0) {
+                    unused.put(product.id, units);
+                }
+            } finally {
+                product.lock.unlock();
+            }
+        }
+        if (unused.isEmpty()) {
+            return;
+        }
+        try {
+            store.restock(unused);
+        } catch (RuntimeException e) {
+            // Kept in memory; the next flush tries again
+            unused.forEach((productId, units) -> products.get(productId).add(0, units));
+            log.warn("Could not return {} leased products to the database", unused.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Serialized per product: pools what the stripes still hold plus a new lease, so a request
+    // larger than any single stripe can still be served
+    private boolean refillAndTake(HotProduct product, int home, int quantity) {
+        product.lock.lock();
+        try {
+            if (product.tryTake(home, quantity)) {
+                return true;
+            }
+            int pooled = product.drain();
+            if (pooled < quantity) {
+                try {
+                    pooled += store.lease(product.id, Math.max(leaseSize, quantity - pooled));
+                } catch (RuntimeException e) {
+                    product.add(home, pooled);
+                    throw e;
+                }
+            }
+            if (pooled < quantity) {
+                product.add(home, pooled);
+                return false;
+            }
+            product.spread(home, pooled - quantity);
+            return true;
+        } finally {
+            product.lock.unlock();
+        }
+    }
+
+    private int homeStripe() {
+        return (int) (Thread.currentThread().threadId() % stripes);
+    }
+
+    private static final class HotProduct {
+        private final long id;
+        private final int stripes;
+        private final AtomicIntegerArray units;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private HotProduct(long id, int stripes) {
+            this.id = id;
+            this.stripes = stripes;
+            this.units = new AtomicIntegerArray(stripes * PAD);
+        }
+
+        // Own stripe first, then the others; never splits one reservation across stripes
+        private boolean tryTake(int home, int quantity) {
+            for (int i = 0; i < stripes; i++) {
+                int slot = ((home + i) % stripes) * PAD;
+                int current;
+                while ((current = units.get(slot)) >= quantity) {
+                    if (units.compareAndSet(slot, current, current - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void add(int stripe, int quantity) {
+            units.addAndGet(stripe * PAD, quantity);
+        }
+
+        private int drain() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += units.getAndSet(i * PAD, 0);
+            }
+            return total;
+        }
+
+        private void spread(int home, int quantity) {
+            int share = quantity / stripes;
+            for (int i = 0; i < stripes; i++) {
+                add(i, share);
+            }
+            add(home, quantity - share * stripes);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ReservationItem;
+import com.sbaldasso.ecommerce_aws.dto.ReservationResponse;
+import com.sbaldasso.ecommerce_aws.exception.InsufficientStockException;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Stock only moves through conditional updates, never read-modify-write. Not @Transactional:
+// hot products are served from the in-memory ledger without holding a pooled connection, so
+// only the database paths open a transaction.
+@Service
+public class InventoryService {
+
+    private final ProductRepository repo;
+    private final InventoryLedger ledger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public InventoryService(ProductRepository repo,
+                            InventoryLedger ledger,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.ledger = ledger;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ReservationResponse reserve(Long productId, int quantity) {
+        if (ledger.isHot(productId)) {
+            return reserveHot(productId, quantity);
+        }
+        return transactionTemplate.execute(status -> reserveInDatabase(productId, quantity));
+    }
+
+    public ReservationResponse release(Long productId, int quantity) {
+        if (ledger.isHot(productId)) {
+            ledger.release(productId, quantity);
+            return new ReservationResponse(productId, quantity, null);
+        }
+        return transactionTemplate.execute(status -> releaseInDatabase(productId, quantity));
+    }
+
+    // All or nothing. Rows are locked in id order so two overlapping batches cannot deadlock;
+    // hot products taken before a failure are handed back to the ledger.
+    public List<ReservationResponse> reserveAll(List<ReservationItem> items) {
+        Map<Long, Integer> byProduct = merge(items);
+        List<ReservationResponse> reserved = new ArrayList<>(byProduct.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> byProduct.forEach((productId, quantity) ->
+                    reserved.add(ledger.isHot(productId)
+                            ? reserveHot(productId, quantity)
+                            : reserveInDatabase(productId, quantity))));
+        } catch (RuntimeException e) {
+            for (ReservationResponse r : reserved) {
+                if (ledger.isHot(r.getProductId())) {
+                    ledger.release(r.getProductId(), r.getQuantity());
+                }
+            }
+            throw e;
+        }
+        return reserved;
+    }
+
+    // Hot products are only credited once the database part has committed
+    public List<ReservationResponse> releaseAll(List<ReservationItem> items) {
+        Map<Long, Integer> byProduct = merge(items);
+        List<ReservationResponse> released = new ArrayList<>(byProduct.size());
+        transactionTemplate.executeWithoutResult(status -> byProduct.forEach((productId, quantity) ->
+                released.add(ledger.isHot(productId)
+                        ? new ReservationResponse(productId, quantity, null)
+                        : releaseInDatabase(productId, quantity))));
+        for (ReservationResponse r : released) {
+            if (ledger.isHot(r.getProductId())) {
+                ledger.release(r.getProductId(), r.getQuantity());
+            }
+        }
+        return released;
+    }
+
+    private ReservationResponse reserveHot(Long productId, int quantity) {
+        if (!ledger.reserve(productId, quantity)) {
+            throw insufficient(productId, quantity);
+        }
+        return new ReservationResponse(productId, quantity, null);
+    }
+
+    private ReservationResponse reserveInDatabase(Long productId, int quantity) {
+        Integer remaining = repo.reserveReturning(productId, quantity)
+                .orElseThrow(() -> repo.existsById(productId)
+                        ? insufficient(productId, quantity)
+                        : new ProductNotFoundException());
+        changed(productId);
+        return new ReservationResponse(productId, quantity, remaining);
+    }
+
+    private ReservationResponse releaseInDatabase(Long productId, int quantity) {
+        Integer remaining = repo.releaseReturning(productId, quantity)
+                .orElseThrow(ProductNotFoundException::new);
+        changed(productId);
+        return new ReservationResponse(productId, quantity, remaining);
+    }
+
+    private void changed(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, List.of(productId)));
+    }
+
+    private static Map<Long, Integer> merge(List<ReservationItem> items) {
+        Map<Long, Integer> byProduct = new TreeMap<>();
+        for (ReservationItem item : items) {
+            byProduct.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return byProduct;
+    }
+
+    private static InsufficientStockException insufficient(Long productId, int quantity) {
+        return new InsufficientStockException("Not enough stock to reserve " + quantity + " of product " + productId);
+    }
+}
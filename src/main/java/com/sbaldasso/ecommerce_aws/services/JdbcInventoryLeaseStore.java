@@ -0,0 +1,72 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Leases commit on their own: the units they move into memory must not come back if a
+// surrounding transaction rolls back. Both paths change quantity and version like any other
+// write, so they publish ProductChangedEvent; the listeners run once this transaction commits,
+// and caches, ETags and CloudFront follow the row.
+@Component
+public class JdbcInventoryLeaseStore implements InventoryLeaseStore {
+
+    // The CTE locks the row and keeps the pre-update quantity for RETURNING
+    private static final String LEASE = "WITH current AS ("
+            + "  SELECT id, quantity FROM products WHERE id = ? FOR UPDATE"
+            + ") "
+            + "UPDATE products p SET quantity = p.quantity - least(c.quantity, ?), "
+            + "  updated_at = now(), version = p.version + 1 "
+            + "FROM current c WHERE p.id = c.id AND c.quantity > 0 "
+            + "RETURNING least(c.quantity, ?)";
+
+    private static final String RESTOCK = "UPDATE products SET quantity = quantity + ?, "
+            + "updated_at = now(), version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcInventoryLeaseStore(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public int lease(long productId, int max) {
+        Integer granted = transactionTemplate.execute(status -> {
+            List<Integer> rows = jdbcTemplate.queryForList(LEASE, Integer.class, productId, max, max);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            changed(List.of(productId));
+            return rows.get(0);
+        });
+        return granted == null ? 0 : granted;
+    }
+
+    @Override
+    public void restock(Map<Long, Integer> units) {
+        List<Object[]> args = new ArrayList<>(units.size());
+        units.forEach((productId, n) -> args.add(new Object[]{n, productId}));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(RESTOCK, args);
+            changed(List.copyOf(units.keySet()));
+        });
+    }
+
+    private void changed(List<Long> ids) {
+        eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, ids));
+    }
+}
@@ -0,0 +1,183 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.OutboxProperties;
+import com.sbaldasso.ecommerce_aws.config.SchedulingConfig;
+import com.sbaldasso.ecommerce_aws.entities.OutboxEvent;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final TypeReference<Map<String, String>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final OutboxEventRepository repo;
+    private final ConfirmingPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+
+    private final Counter published;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Timer batchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxEventRepository repo,
+                       ConfirmingPublisher publisher,
+                       PlatformTransactionManager transactionManager,
+                       ObjectMapper objectMapper,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.failed")
+                .description("Publish attempts that were returned, nacked or timed out; the rows are retried")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.dead.lettered")
+                .description("Events moved to outbox_dead_letters after outbox.max-attempts rejections")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch").register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // Own thread: a batch can wait confirmTimeout * (1 + maxNackRetries) on the broker
+    @Scheduled(fixedDelayString = "#{@outboxProperties.pollInterval.toMillis()}",
+            scheduler = SchedulingConfig.OUTBOX_RELAY_SCHEDULER)
+    public void relay() {
+        try {
+            // Keep draining while batches come back full
+            int relayed;
+            do {
+                Timer.Sample sample = Timer.start();
+                relayed = relayBatch();
+                sample.stop(batchTimer);
+            } while (relayed >= properties.getBatchSize());
+            refreshBacklogMetrics();
+        } catch (Exception e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    // Claim (short transaction), publish with no transaction or connection held, then settle
+    // the outcome in a second short transaction
+    int relayBatch() {
+        List<OutboxEvent> claimed = transactionTemplate.execute(status ->
+                repo.claimNextBatch(properties.getBatchSize(), properties.getClaimTimeout().toMillis()));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        // RETURNING has no order; publish in outbox order
+        List<OutboxEvent> batch = new ArrayList<>(claimed);
+        batch.sort(Comparator.comparing(OutboxEvent::getId));
+
+        List<ConfirmingPublisher.Outgoing> outgoing = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            outgoing.add(new ConfirmingPublisher.Outgoing(String.valueOf(event.getId()),
+                    event.getExchange(), event.getRoutingKey(), toMessage(event)));
+        }
+        ConfirmingPublisher.Result result = publisher.publish(outgoing, properties.getConfirmTimeout(),
+                properties.getMaxNackRetries());
+
+        List<Long> acked = new ArrayList<>(batch.size());
+        List<Long> rejected = new ArrayList<>();
+        List<Long> exhausted = new ArrayList<>();
+        List<Long> unconfirmed = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            String id = String.valueOf(event.getId());
+            if (result.confirmed().contains(id)) {
+                acked.add(event.getId());
+            } else if (!result.rejected().contains(id)) {
+                unconfirmed.add(event.getId());
+            } else if (event.getAttempts() + 1 >= properties.getMaxAttempts()) {
+                exhausted.add(event.getId());
+            } else {
+                rejected.add(event.getId());
+            }
+        }
+
+        long retryDelay = properties.getRetryDelay().toMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!acked.isEmpty()) {
+                repo.deleteAllByIdInBatch(acked);
+            }
+            if (!rejected.isEmpty()) {
+                repo.retryLater(rejected, 1, retryDelay);
+            }
+            if (!unconfirmed.isEmpty()) {
+                repo.retryLater(unconfirmed, 0, retryDelay);
+            }
+            if (!exhausted.isEmpty()) {
+                repo.moveToDeadLetters(exhausted);
+            }
+        });
+
+        published.increment(acked.size());
+        failed.increment(rejected.size() + unconfirmed.size());
+        if (!exhausted.isEmpty()) {
+            deadLettered.increment(exhausted.size());
+            log.error("Outbox events {} were rejected by the broker {} times and moved to outbox_dead_letters",
+                    exhausted, properties.getMaxAttempts());
+        }
+        if (acked.size() < batch.size()) {
+            log.warn("{} outbox events were not confirmed by the broker and will be retried",
+                    rejected.size() + unconfirmed.size());
+        }
+        // A partially confirmed batch stops the drain loop until the next poll
+        return acked.size() == batch.size() ? batch.size() : 0;
+    }
+
+    private Message toMessage(OutboxEvent event) {
+        MessageBuilder builder = MessageBuilder.withBody(event.getPayload())
+                .setContentType(event.getContentType())
+                .setMessageId(String.valueOf(event.getId()));
+        if (event.getHeaders() != null) {
+            try {
+                objectMapper.readValue(event.getHeaders(), HEADERS_TYPE).forEach(builder::setHeader);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable headers on outbox event {}", event.getId(), e);
+            }
+        }
+        return builder.build();
+    }
+
+    private void refreshBacklogMetrics() {
+        pending.set(repo.count());
+        Instant oldest = repo.findOldestCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+    }
+}
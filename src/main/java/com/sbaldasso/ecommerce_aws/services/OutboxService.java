@@ -0,0 +1,66 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.entities.OutboxEvent;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Writes messages into the outbox table as part of the caller's transaction; OutboxRelay publishes them
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository repo;
+    private final MessageConverter messageConverter;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository repo, MessageConverter messageConverter, ObjectMapper objectMapper) {
+        this.repo = repo;
+        this.messageConverter = messageConverter;
+        this.objectMapper = objectMapper;
+    }
+
+    public void enqueue(String aggregateType, Object aggregateId, String routingKey, Object payload) {
+        enqueue(aggregateType, aggregateId, "", routingKey, payload);
+    }
+
+    public void enqueue(String aggregateType, Object aggregateId, String exchange, String routingKey, Object payload) {
+        // Encode now so the relay ships bytes as-is and consumers see the converter's usual headers
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        MessageProperties props = message.getMessageProperties();
+
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(String.valueOf(aggregateId));
+        event.setExchange(exchange);
+        event.setRoutingKey(routingKey);
+        event.setContentType(props.getContentType());
+        event.setHeaders(writeHeaders(props.getHeaders()));
+        event.setPayload(message.getBody());
+        event.setCreatedAt(Instant.now());
+        repo.save(event);
+    }
+
+    private String writeHeaders(Map<String, Object> headers) {
+        if (headers.isEmpty()) {
+            return null;
+        }
+        Map<String, String> values = new HashMap<>();
+        headers.forEach((k, v) -> values.put(k, String.valueOf(v)));
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize message headers", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchItemResult;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchItemResult.Status;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchResponse;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class ProductBatchService {
+
+    private final ProductRepository repo;
+    private final EntityManager entityManager;
+    private final OutboxService outbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductKeyFilter keys;
+    private final int jdbcBatchSize;
+
+    public ProductBatchService(ProductRepository repo,
+                               EntityManager entityManager,
+                               OutboxService outbox,
+                               ApplicationEventPublisher eventPublisher,
+                               ProductKeyFilter keys,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
+        this.repo = repo;
+        this.entityManager = entityManager;
+        this.outbox = outbox;
+        this.eventPublisher = eventPublisher;
+        this.keys = keys;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    // Creates unknown SKUs and updates known ones. One query resolves every SKU up front;
+    // inserts take ids from the pooled sequence and go out as JDBC batches.
+    public ProductBatchResponse upsert(List<ProductRequest> items) {
+        ProductBatchItemResult[] results = new ProductBatchItemResult[items.size()];
+
+        Set<String> seen = new HashSet<>();
+        Map<String, Product> existing = repo.findBySkuIn(items.stream().map(ProductRequest::getSku).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getSku, Function.identity()));
+
+        // Updates first: the loaded entities must stay managed until they are flushed
+        List<Integer> toCreate = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProductRequest req = items.get(i);
+            if (!seen.add(req.getSku())) {
+                results[i] = new ProductBatchItemResult(i, req.getSku(), null, Status.FAILED, "Duplicate SKU in batch");
+                continue;
+            }
+            Product p = existing.get(req.getSku());
+            if (p == null) {
+                toCreate.add(i);
+                continue;
+            }
+            ProductMapper.updateEntity(p, req);
+            updatedIds.add(p.getId());
+            results[i] = new ProductBatchItemResult(i, req.getSku(), p.getId(), Status.UPDATED, null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> createdIds = new ArrayList<>(toCreate.size());
+        for (int n = 0; n < toCreate.size(); n++) {
+            int i = toCreate.get(n);
+            Product p = ProductMapper.toEntity(items.get(i));
+            entityManager.persist(p);
+            // As in ProductService.create: later creates of this SKU must not skip the lookup
+            keys.addSku(p.getSku());
+            createdIds.add(p.getId());
+            results[i] = new ProductBatchItemResult(i, p.getSku(), p.getId(), Status.CREATED, null);
+
+            outbox.enqueue("Product", p.getId(), RabbitMQConfig.PRODUCT_CREATED_QUEUE,
+                    new ProductCreatedEvent(p.getId(), p.getSku()));
+
+            // Keep the persistence context small; each flush sends the products and their
+            // outbox rows as batched INSERTs
+            if ((n + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        if (!updatedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, updatedIds));
+        }
+        if (!createdIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, createdIds));
+        }
+
+        int failed = items.size() - updatedIds.size() - createdIds.size();
+        return new ProductBatchResponse(createdIds.size(), updatedIds.size(), failed, Arrays.asList(results));
+    }
+}
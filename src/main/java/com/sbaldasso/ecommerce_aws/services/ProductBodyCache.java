@@ -0,0 +1,97 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.ProductBodyCacheProperties;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+// GET /api/products/{id} bodies serialized once and kept as bytes, together with the headers
+// that describe them. A hit skips mapping and Jackson entirely. Entries are evicted with the
+// products cache (ProductCacheInvalidator), so they are never older than the cached product.
+@Component
+public class ProductBodyCache {
+
+    // Immutable once built; the arrays are written straight to the response and never modified.
+    // The gzip bytes are a different representation, so they carry their own strong ETag.
+    public record ProductBody(long id, long version, String etag, long lastModified,
+                              byte[] json, byte[] gzip, String gzipEtag) {
+    }
+
+    public static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    private final ProductService productService;
+    private final ProductKeyFilter keys;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinSize;
+
+    public ProductBodyCache(ProductService productService,
+                            ProductKeyFilter keys,
+                            CacheManager cacheManager,
+                            ObjectMapper objectMapper,
+                            ProductBodyCacheProperties properties) {
+        this.productService = productService;
+        this.keys = keys;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.gzipMinSize = properties.getGzipMinSize();
+    }
+
+    // Loads through ProductService.findById, so a miss here can still hit the products cache.
+    // Ids the key filter rules out are rejected first, outside any transaction, so probes for
+    // random ids never borrow a connection.
+    public ProductBody get(Long id) {
+        if (!keys.mightContainId(id)) {
+            throw new ProductNotFoundException();
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCT_BODIES_CACHE);
+        if (cache == null) {
+            return toBody(productService.findById(id));
+        }
+        try {
+            return cache.get(id, () -> toBody(productService.findById(id)));
+        } catch (Cache.ValueRetrievalException e) {
+            // Keep "not found" a 404, as it is without the cache
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    ProductBody toBody(ProductResponse product) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize product " + product.getId(), e);
+        }
+        long version = product.getVersion() == null ? 0 : product.getVersion();
+        Instant modified = product.getUpdatedAt() != null ? product.getUpdatedAt() : product.getCreatedAt();
+        byte[] gzip = gzipMinSize >= 0 && json.length >= gzipMinSize ? gzip(json) : null;
+        return new ProductBody(product.getId(), version, "\"" + version + "\"",
+                modified != null ? modified.toEpochMilli() : -1,
+                json, gzip, gzip != null ? "\"" + version + GZIP_ETAG_SUFFIX + "\"" : null);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
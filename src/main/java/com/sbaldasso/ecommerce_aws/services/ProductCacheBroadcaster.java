@@ -0,0 +1,187 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheInvalidationProperties;
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.config.SchedulingConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductInvalidationMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerStartedEvent;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerStoppedEvent;
+import org.springframework.amqp.rabbit.listener.ListenerContainerConsumerFailedEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tells the other nodes to drop their cached copies after a local write commits. Messages are
+// fire-and-forget: a lost one shows up as a sequence gap on the next message from the same node,
+// and the receiver then clears its whole cache instead of guessing what it missed. Sending happens
+// on a background thread from a bounded queue, so a slow or unreachable broker never delays the
+// committing request; a full queue or failed send is just another lost message.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cache-invalidation", name = "broadcast", havingValue = "true", matchIfMissing = true)
+public class ProductCacheBroadcaster {
+
+    private final ProductCacheInvalidator invalidator;
+    private final ProductKeyFilter keys;
+    private final RabbitTemplate rabbitTemplate;
+    private final BlockingQueue<ProductInvalidationMessage> outgoing;
+
+    // New on every start, so a restarted node never reuses old sequence numbers
+    private final String node = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+    private final Counter sent;
+    private final Counter sendFailures;
+    private final Counter dropped;
+    private final Counter received;
+    private final Counter gaps;
+
+    public ProductCacheBroadcaster(ProductCacheInvalidator invalidator,
+                                   ProductKeyFilter keys,
+                                   RabbitTemplate rabbitTemplate,
+                                   CacheInvalidationProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.invalidator = invalidator;
+        this.keys = keys;
+        this.rabbitTemplate = rabbitTemplate;
+        this.outgoing = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.sent = Counter.builder("cache.invalidation.sent").register(meterRegistry);
+        this.sendFailures = Counter.builder("cache.invalidation.send.failures").register(meterRegistry);
+        this.dropped = Counter.builder("cache.invalidation.dropped")
+                .description("Invalidations discarded because the send queue was full")
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidation.queue.size", outgoing, BlockingQueue::size).register(meterRegistry);
+        this.received = Counter.builder("cache.invalidation.received").register(meterRegistry);
+        this.gaps = Counter.builder("cache.invalidation.gaps")
+                .description("Missed invalidations that forced a full cache flush")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        boolean created = event.getType() == ProductChangedEvent.Type.CREATED;
+        List<Long> ids = event.getType() == ProductChangedEvent.Type.IMPORTED ? List.of() : event.getIds();
+        // Taken before queueing: a dropped or failed message leaves a gap the other nodes will notice
+        ProductInvalidationMessage message =
+                new ProductInvalidationMessage(node, sequence.incrementAndGet(), ids, created);
+        if (!outgoing.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{@cacheInvalidationProperties.sendInterval.toMillis()}",
+            scheduler = SchedulingConfig.INVALIDATION_SENDER_SCHEDULER)
+    public void sendQueued() {
+        List<ProductInvalidationMessage> batch = new ArrayList<>();
+        outgoing.drainTo(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            ProductInvalidationMessage message = batch.get(i);
+            try {
+                rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_INVALIDATION_EXCHANGE, "", message);
+                sent.increment();
+            } catch (AmqpException e) {
+                // The rest would most likely wait out the same timeout; the receivers see one gap
+                sendFailures.increment(batch.size() - i);
+                log.warn("Could not broadcast invalidations {} to {}", message.getSequence(),
+                        batch.get(batch.size() - 1).getSequence(), e);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendQueued();
+    }
+
+    // One consumer (see the factory): gap detection relies on each node's messages arriving in order
+    @RabbitListener(id = RabbitMQConfig.INVALIDATION_LISTENER_ID, queues = "#{productInvalidationQueue.name}",
+            containerFactory = RabbitMQConfig.INVALIDATION_LISTENER_FACTORY)
+    public void onInvalidation(ProductInvalidationMessage message) {
+        if (node.equals(message.getNode())) {
+            return;
+        }
+        received.increment();
+
+        Long previous = lastSeen.put(message.getNode(), message.getSequence());
+        // The first message from a node is the baseline: earlier ones predate this subscription
+        if (previous != null && message.getSequence() != previous + 1) {
+            gaps.increment();
+            log.warn("Missed invalidations from node {} ({} -> {}); clearing the product cache",
+                    message.getNode(), previous, message.getSequence());
+            invalidator.evictAll();
+            // Products created in the missed messages are unknown to the key filter
+            keys.requestRebuild();
+            return;
+        }
+
+        if (message.isCreated()) {
+            // Other nodes' search pages go stale; their cached products do not
+            invalidator.invalidateSearches();
+            keys.addIds(message.getIds());
+        } else if (message.getIds() == null || message.getIds().isEmpty()) {
+            invalidator.evictAll();
+            keys.requestRebuild();
+        } else {
+            invalidator.evict(message.getIds());
+        }
+    }
+
+    // Published on the consumer thread before it takes any message: at startup and whenever the
+    // container restarts a consumer after a lost connection. The auto-delete queue went with the
+    // connection, and whatever was sent meanwhile is gone without leaving a gap to detect, so
+    // start over from an empty cache and fresh sequence baselines.
+    @EventListener
+    public void onConsumerStarted(AsyncConsumerStartedEvent event) {
+        if (!isInvalidationConsumer(event.getSource())) {
+            return;
+        }
+        lastSeen.clear();
+        invalidator.evictAll();
+        // Creations missed meanwhile are picked up by the rebuild this requests
+        keys.subscriptionStarted();
+        log.info("Invalidation consumer started; product cache cleared");
+    }
+
+    // Until the consumer is back, products created on other nodes never reach the key filter
+    @EventListener
+    public void onConsumerFailed(ListenerContainerConsumerFailedEvent event) {
+        if (isInvalidationConsumer(event.getSource())) {
+            keys.subscriptionLost();
+        }
+    }
+
+    @EventListener
+    public void onConsumerStopped(AsyncConsumerStoppedEvent event) {
+        if (isInvalidationConsumer(event.getSource())) {
+            keys.subscriptionLost();
+        }
+    }
+
+    private static boolean isInvalidationConsumer(Object source) {
+        return source instanceof AbstractMessageListenerContainer container
+                && RabbitMQConfig.INVALIDATION_LISTENER_ID.equals(container.getListenerId());
+    }
+}
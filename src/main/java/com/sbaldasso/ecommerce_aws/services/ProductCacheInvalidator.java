@@ -0,0 +1,96 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ProductCacheInvalidator {
+
+    // Products first: a body rebuilt in between then reloads the product instead of reusing it
+    private static final List<String> CACHES = List.of(CacheConfig.PRODUCTS_CACHE, CacheConfig.PRODUCT_BODIES_CACHE);
+
+    private final CacheManager cacheManager;
+    // Catalog generation: part of every search page key (ProductSearchCache), so moving it on
+    // retires all cached pages at once
+    private final AtomicLong generation = new AtomicLong();
+    // Moves on with every eviction but not with creates (see putIfNotEvicted)
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProductCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // After commit, so a concurrent reader cannot re-cache the pre-write row
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.IMPORTED) {
+            evictAll();
+        } else if (event.getType() != ProductChangedEvent.Type.CREATED) {
+            evict(event.getIds());
+        } else {
+            // Nothing cached yet for a new product, but any search may now include it
+            invalidateSearches();
+        }
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    // For loads outside @Cacheable (warm-ups, search hydration): caches rows read after evictions()
+    // returned evictionsBefore, unless an eviction has happened since, because an update committing
+    // during the read evicts nothing and the rows may predate it. Checked again after the puts;
+    // evicting then may also drop a fresh entry, which only costs a miss.
+    public boolean putIfNotEvicted(long evictionsBefore, Collection<ProductResponse> rows) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache == null || evictions.get() != evictionsBefore) {
+            return false;
+        }
+        // putIfAbsent: never replace an entry loaded by a reader after a later update
+        rows.forEach(row -> cache.putIfAbsent(row.getId(), row));
+        if (evictions.get() != evictionsBefore) {
+            rows.forEach(row -> cache.evict(row.getId()));
+            return false;
+        }
+        return true;
+    }
+
+    public void invalidateSearches() {
+        generation.incrementAndGet();
+    }
+
+    public void evict(Collection<Long> ids) {
+        evictions.incrementAndGet();
+        invalidateSearches();
+        for (String name : CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                ids.forEach(cache::evict);
+            }
+        }
+    }
+
+    public void evictAll() {
+        evictions.incrementAndGet();
+        invalidateSearches();
+        for (String name : CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Keeps derived read state in step with new products: each batch of created events warms the
+// products cache with one query. Idempotent, so redeliveries and duplicates are harmless.
+// Undecodable messages go straight to the DLQ; a failing batch is retried and then dead-lettered
+// as a whole by the container.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "product-events", name = "consumer-enabled", havingValue = "true", matchIfMissing = true)
+public class ProductCreatedListener {
+
+    private final ProductRepository repo;
+    private final ProductCacheInvalidator invalidator;
+    private final MessageConverter messageConverter;
+    private final RabbitTemplate rabbitTemplate;
+
+    private final DistributionSummary batchSize;
+    private final Counter warmed;
+    private final Counter missing;
+    private final Counter deadLettered;
+
+    public ProductCreatedListener(ProductRepository repo,
+                                  ProductCacheInvalidator invalidator,
+                                  MessageConverter messageConverter,
+                                  RabbitTemplate rabbitTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.invalidator = invalidator;
+        this.messageConverter = messageConverter;
+        this.rabbitTemplate = rabbitTemplate;
+
+        this.batchSize = DistributionSummary.builder("product.events.batch.size").register(meterRegistry);
+        this.warmed = Counter.builder("product.events.warmed")
+                .description("Products put in the cache; a batch overtaken by a product write warms nothing")
+                .register(meterRegistry);
+        this.missing = Counter.builder("product.events.missing")
+                .description("Created events whose product was already gone (or not yet on the replica)")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("product.events.dead.lettered").register(meterRegistry);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.PRODUCT_CREATED_QUEUE,
+            containerFactory = RabbitMQConfig.BATCH_LISTENER_FACTORY)
+    public void onProductsCreated(List<Message> messages) {
+        batchSize.record(messages.size());
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Message message : messages) {
+            try {
+                // JSON or binary, by content type; unknown content types come back as raw bytes
+                Object payload = messageConverter.fromMessage(message);
+                if (!(payload instanceof ProductCreatedEvent event) || event.getId() == null) {
+                    throw new MessageConversionException("Not a product created event");
+                }
+                ids.add(event.getId());
+            } catch (MessageConversionException e) {
+                deadLetter(message, e);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        // Read from the primary, which a replica may lag; dropped if an update raced the read
+        long evictions = invalidator.evictions();
+        List<Product> products = ReadYourWrites.onPrimary(() -> repo.findAllById(ids));
+        missing.increment(ids.size() - products.size());
+        if (!invalidator.putIfNotEvicted(evictions, products.stream().map(ProductMapper::toResponse).toList())) {
+            log.debug("Processed {} product created events (none warmed)", messages.size());
+            return;
+        }
+        warmed.increment(products.size());
+        log.debug("Processed {} product created events ({} products warmed)", messages.size(), products.size());
+    }
+
+    private void deadLetter(Message message, Exception cause) {
+        deadLettered.increment();
+        log.warn("Dead-lettering undecodable product created message {}",
+                message.getMessageProperties().getMessageId(), cause);
+        rabbitTemplate.send("", RabbitMQConfig.PRODUCT_CREATED_DLQ, MessageBuilder.fromMessage(message)
+                .setHeader("x-exception-message", String.valueOf(cause.getMessage()))
+                .build());
+    }
+}
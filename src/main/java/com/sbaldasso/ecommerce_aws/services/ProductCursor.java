@@ -0,0 +1,75 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.InvalidCursorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Locale;
+
+// Opaque keyset position: the sort key of the last row a client has seen, base64url encoded.
+public record ProductCursor(Sort sort, long lastId, String lastName) {
+
+    private static final byte VERSION = 1;
+
+    public enum Sort {
+        ID, NAME;
+
+        public static Sort from(String value) {
+            if (value == null || value.isBlank()) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("Unsupported sort: " + value);
+            }
+        }
+    }
+
+    public static ProductCursor first(Sort sort) {
+        // Ids are positive and names are never blank, so this sorts before every row
+        return new ProductCursor(sort, 0L, "");
+    }
+
+    public static ProductCursor after(Sort sort, Product last) {
+        return new ProductCursor(sort, last.getId(), sort == Sort.NAME ? last.getName() : "");
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeByte(sort.ordinal());
+            out.writeLong(lastId);
+            out.writeUTF(lastName);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static ProductCursor decode(String token, Sort expectedSort) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != VERSION) {
+                throw new InvalidCursorException("Unsupported cursor version");
+            }
+            Sort sort = Sort.values()[in.readByte()];
+            if (sort != expectedSort) {
+                throw new InvalidCursorException("Cursor was issued for sort " + sort.name().toLowerCase(Locale.ROOT));
+            }
+            ProductCursor cursor = new ProductCursor(sort, in.readLong(), in.readUTF());
+            // Trailing bytes mean the token was not produced by encode()
+            if (in.available() > 0) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+}
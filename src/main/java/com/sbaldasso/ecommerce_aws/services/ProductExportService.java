@@ -0,0 +1,138 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.UnsupportedExportFormatException;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Streams the whole catalog in id order; memory use does not depend on the number of rows
+@Slf4j
+@Service
+public class ProductExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedExportFormatException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "id,sku,name,description,price,quantity,createdAt,updatedAt";
+
+    private final ProductRepository repo;
+    private final EntityManager entityManager;
+    private final ObjectWriter jsonWriter;
+
+    public ProductExportService(ProductRepository repo, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.repo = repo;
+        this.entityManager = entityManager;
+        // Rows are flushed when Jackson's buffer fills, not after every value
+        this.jsonWriter = objectMapper.writerFor(ProductResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Read-only so the stream runs inside a transaction, which pgjdbc needs for cursor-based fetching
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        try (Stream<Product> products = repo.streamAllByOrderById()) {
+            long rows = format == Format.CSV ? writeCsv(products.iterator(), out) : writeNdjson(products.iterator(), out);
+            log.info("Exported {} products as {}", rows, format);
+            return rows;
+        }
+    }
+
+    private long writeNdjson(Iterator<Product> products, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = jsonWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (products.hasNext()) {
+                jsonWriter.writeValue(generator, next(products));
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<Product> products, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (products.hasNext()) {
+            ProductResponse p = next(products);
+            writer.write(String.valueOf(p.getId()));
+            writer.write(',');
+            Csv.writeField(writer, p.getSku());
+            writer.write(',');
+            Csv.writeField(writer, p.getName());
+            writer.write(',');
+            Csv.writeField(writer, p.getDescription());
+            writer.write(',');
+            Csv.writeField(writer, p.getPrice() == null ? null : p.getPrice().toPlainString());
+            writer.write(',');
+            Csv.writeField(writer, p.getQuantity() == null ? null : p.getQuantity().toString());
+            writer.write(',');
+            Csv.writeField(writer, p.getCreatedAt() == null ? null : p.getCreatedAt().toString());
+            writer.write(',');
+            Csv.writeField(writer, p.getUpdatedAt() == null ? null : p.getUpdatedAt().toString());
+            writer.write("\r\n");
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    // Detaches each entity once mapped, so the persistence context stays empty
+    private ProductResponse next(Iterator<Product> products) {
+        Product product = products.next();
+        ProductResponse response = ProductMapper.toResponse(product);
+        entityManager.detach(product);
+        return response;
+    }
+}
@@ -0,0 +1,203 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductImportResponse;
+import com.sbaldasso.ecommerce_aws.dto.ProductsImportedEvent;
+import com.sbaldasso.ecommerce_aws.exception.InvalidImportException;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+// Bulk load: the upload is streamed into a temp staging table with COPY, then merged into
+// products with a single INSERT ... ON CONFLICT. Rows never become entities.
+@Slf4j
+@Service
+public class ProductImportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format fromContentType(String contentType) {
+            String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("application/x-ndjson")) {
+                return NDJSON;
+            }
+            throw new InvalidImportException("Unsupported import content type: " + contentType);
+        }
+    }
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Text columns: a malformed price or quantity is skipped by the merge instead of aborting the COPY
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE product_import ("
+            + "line BIGINT GENERATED ALWAYS AS IDENTITY, "
+            + "sku TEXT, name TEXT, description TEXT, price TEXT, quantity TEXT"
+            + ") ON COMMIT DROP";
+
+    private static final String COPY_CSV = "COPY product_import (sku, name, description, price, quantity) "
+            + "FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    private static final String COPY_ROWS = "COPY product_import (sku, name, description, price, quantity) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    // The last occurrence of a SKU wins; rows identical to the stored product are left untouched.
+    // xmax = 0 only holds for freshly inserted tuples, which splits the count into created/updated.
+    private static final String MERGE = "WITH latest AS ("
+            + "  SELECT DISTINCT ON (sku) trim(sku) AS sku, trim(name) AS name, description, "
+            + "         price::numeric(19, 2) AS price, quantity::integer AS quantity "
+            + "  FROM product_import "
+            + "  WHERE length(trim(sku)) BETWEEN 1 AND 255 AND length(trim(name)) BETWEEN 1 AND 255 "
+            + "    AND coalesce(length(description), 0) <= 2000 "
+            + "    AND price ~ '^[0-9]{1,17}(\\.[0-9]{1,2})?$' AND quantity ~ '^[0-9]{1,9}$' "
+            + "  ORDER BY sku, line DESC"
+            + "), upserted AS ("
+            + "  INSERT INTO products (sku, name, description, price, quantity, created_at, updated_at) "
+            + "  SELECT sku, name, description, price, quantity, now(), now() FROM latest "
+            + "  ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, "
+            + "    price = EXCLUDED.price, quantity = EXCLUDED.quantity, updated_at = now(), "
+            + "    version = products.version + 1 "
+            + "  WHERE (products.name, products.description, products.price, products.quantity) "
+            + "    IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.quantity) "
+            + "  RETURNING (xmax = 0) AS inserted"
+            + ") "
+            + "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM upserted";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxService outbox;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductImportService(DataSource dataSource,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                OutboxService outbox,
+                                ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.outbox = outbox;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // All or nothing: the staging table, the merge and the summary event share one transaction
+    @Transactional
+    public ProductImportResponse importProducts(Format format, InputStream body) {
+        String importId = UUID.randomUUID().toString();
+        long start = System.nanoTime();
+
+        jdbcTemplate.execute(CREATE_STAGING);
+        long received = copy(format, body);
+        List<long[]> counts = jdbcTemplate.query(MERGE, (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long created = counts.get(0)[0];
+        long updated = counts.get(0)[1];
+
+        if (created + updated > 0) {
+            outbox.enqueue("ProductImport", importId, RabbitMQConfig.PRODUCTS_IMPORTED_QUEUE,
+                    new ProductsImportedEvent(importId, created, updated, Instant.now()));
+            eventPublisher.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.IMPORTED, List.of()));
+        }
+
+        log.info("Import {}: {} rows received, {} created, {} updated in {} ms",
+                importId, received, created, updated, (System.nanoTime() - start) / 1_000_000);
+        return new ProductImportResponse(importId, received, created, updated, received - created - updated);
+    }
+
+    private long copy(Format format, InputStream body) {
+        // The transaction's own connection, so the temp table and the merge see the copied rows
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            if (format == Format.CSV) {
+                // Passed through untouched: the server parses the CSV
+                CopyManager copyManager = pgConnection.getCopyAPI();
+                return copyManager.copyIn(COPY_CSV, body, COPY_BUFFER_SIZE);
+            }
+            return copyNdjson(pgConnection, body);
+        } catch (SQLException e) {
+            throw new InvalidImportException("Import rejected: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new InvalidImportException("Could not read import body: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // Each line is re-encoded as a CSV row for COPY; only the five imported fields are kept
+    private long copyNdjson(PGConnection connection, InputStream body) throws SQLException, IOException {
+        try (PGCopyOutputStream copy = new PGCopyOutputStream(connection, COPY_ROWS, COPY_BUFFER_SIZE);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+             JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            String[] fields = new String[5];
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new InvalidImportException("Expected one JSON object per line at "
+                            + parser.currentLocation().offsetDescription());
+                }
+                readProduct(parser, fields);
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    Csv.writeField(writer, fields[i]);
+                }
+                writer.write('\n');
+            }
+            writer.flush();
+            copy.endCopy();
+            return copy.getHandledRowCount();
+        }
+    }
+
+    private static void readProduct(JsonParser parser, String[] fields) throws IOException {
+        Arrays.fill(fields, null);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            int index = switch (name) {
+                case "sku" -> 0;
+                case "name" -> 1;
+                case "description" -> 2;
+                case "price" -> 3;
+                case "quantity" -> 4;
+                default -> -1;
+            };
+            if (index < 0 || value == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+            } else if (value.isScalarValue()) {
+                fields[index] = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.KeyFilterProperties;
+import com.sbaldasso.ecommerce_aws.config.SchedulingConfig;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bloom filters over every product id and SKU, so lookups for keys that surely don't exist
+// (scrapers probing random ids, new SKUs on create) skip the database. Answers "might exist"
+// until the first rebuild has finished and while a requested one is pending.
+//
+// Ids are added after commit: a rebuild scanning concurrently either sees the row or is already
+// running when the id is added, so no committed id is ever missing. Ids created on other nodes
+// only arrive through the invalidation broadcast, so a missing id is only trusted while that
+// subscription is live and the filter was rebuilt after it started. Even then it is not trusted
+// for ids above the highest one seen so far (created elsewhere, broadcast still in flight) or for
+// requests pinned to the primary after a write; callers check the database instead and add what
+// they find. SKUs created elsewhere only show up after a rebuild, which is fine because the unique
+// constraint has the final word.
+@Slf4j
+@Component
+public class ProductKeyFilter {
+
+    // subscription: the one live when the scan started, 0 if none
+    private record Filters(BloomFilter ids, BloomFilter skus, long subscription) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KeyFilterProperties properties;
+
+    // null = not trusted, everything might exist
+    private volatile Filters current;
+    // Being filled by a rebuild; adds go here too
+    private volatile Filters building;
+    private volatile boolean rebuildRequested = true;
+    private volatile long lastRebuild;
+    // Highest id from any scan, local create, broadcast or lookup
+    private final AtomicLong highestId = new AtomicLong();
+    // Non-zero while the invalidation consumer is connected, and new on every connect
+    private volatile long subscription;
+    private long subscriptions;
+
+    private final Counter idsRejected;
+    private final Counter skusRejected;
+    private final Timer rebuilds;
+
+    public ProductKeyFilter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            KeyFilterProperties properties,
+                            MeterRegistry meterRegistry) {
+        // Streams the scan through a server-side cursor; not read-only, so it reads the primary
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+
+        this.idsRejected = rejected(meterRegistry, "id");
+        this.skusRejected = rejected(meterRegistry, "sku");
+        this.rebuilds = Timer.builder("product.key.filter.rebuild").register(meterRegistry);
+        Gauge.builder("product.key.filter.ready", this, f -> f.current != null ? 1 : 0)
+                .register(meterRegistry);
+        Gauge.builder("product.key.filter.authoritative", this, f -> f.idsAuthoritative(f.current) ? 1 : 0)
+                .description("Whether missing ids are answered without a database query")
+                .register(meterRegistry);
+    }
+
+    public boolean mightContainId(Long id) {
+        Filters filters = current;
+        if (!idsAuthoritative(filters) || id == null || id > highestId.get() || ReadYourWrites.isPinned()
+                || filters.ids().mightContain(id)) {
+            return true;
+        }
+        idsRejected.increment();
+        return false;
+    }
+
+    public boolean mightContainSku(String sku) {
+        Filters filters = current;
+        if (filters == null || sku == null || filters.skus().mightContain(BloomFilter.hash(sku))) {
+            return true;
+        }
+        skusRejected.increment();
+        return false;
+    }
+
+    // Building first, then current: a rebuild swapping in between cannot lose the key
+    public void addIds(Collection<Long> ids) {
+        ids.forEach(id -> highestId.accumulateAndGet(id, Math::max));
+        for (Filters filters : new Filters[]{building, current}) {
+            if (filters != null) {
+                ids.forEach(filters.ids()::put);
+            }
+        }
+    }
+
+    // Called before commit; a rolled back insert only leaves a false positive behind
+    public void addSku(String sku) {
+        for (Filters filters : new Filters[]{building, current}) {
+            if (filters != null) {
+                filters.skus().put(BloomFilter.hash(sku));
+            }
+        }
+    }
+
+    // For changes whose keys are unknown (imports, missed broadcasts): stop trusting the filter
+    // until the next rebuild has run
+    public synchronized void requestRebuild() {
+        current = null;
+        rebuildRequested = true;
+    }
+
+    // The invalidation consumer is live: creations from now on reach addIds, so the next rebuild
+    // makes missing ids authoritative
+    public synchronized void subscriptionStarted() {
+        subscription = ++subscriptions;
+        rebuildRequested = true;
+    }
+
+    // Creations elsewhere go unseen until the consumer is back
+    public void subscriptionLost() {
+        subscription = 0;
+    }
+
+    boolean isSubscribed() {
+        return subscription != 0;
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.CREATED) {
+            addIds(event.getIds());
+        } else if (event.getType() == ProductChangedEvent.Type.IMPORTED) {
+            requestRebuild();
+        }
+    }
+
+    // A full table scan: on its own thread so it never holds up the shared scheduler
+    @Scheduled(fixedDelay = 1000, scheduler = SchedulingConfig.KEY_FILTER_SCHEDULER)
+    public void rebuildIfDue() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!rebuildRequested && now - lastRebuild < properties.getRebuildInterval().toMillis()) {
+            return;
+        }
+        rebuildRequested = false;
+        lastRebuild = now;
+        try {
+            rebuilds.record(this::rebuild);
+        } catch (RuntimeException e) {
+            building = null;
+            rebuildRequested = true;
+            log.warn("Could not rebuild the product key filter", e);
+        }
+    }
+
+    void rebuild() {
+        // Read before the scan: remote creations before that subscription started are committed
+        // and scanned, later ones arrive through addIds
+        long subscribedAt = subscription;
+        transactionTemplate.executeWithoutResult(status -> {
+            Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM products", Long.class);
+            long expected = Math.max(properties.getExpectedInsertions(), 2 * (rows == null ? 0 : rows));
+            Filters next = new Filters(new BloomFilter(expected, properties.getFalsePositiveRate()),
+                    new BloomFilter(expected, properties.getFalsePositiveRate()), subscribedAt);
+            building = next;
+            jdbcTemplate.query("SELECT id, sku FROM products", rs -> {
+                long id = rs.getLong(1);
+                next.ids().put(id);
+                next.skus().put(BloomFilter.hash(rs.getString(2)));
+                highestId.accumulateAndGet(id, Math::max);
+            });
+        });
+        // A request that arrived during the scan keeps the filter untrusted until the next run
+        synchronized (this) {
+            if (!rebuildRequested) {
+                current = building;
+            }
+            building = null;
+        }
+    }
+
+    private boolean idsAuthoritative(Filters filters) {
+        return filters != null && filters.subscription() != 0 && filters.subscription() == subscription;
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("product.key.filter.rejected")
+                .description("Lookups answered as missing without a database query")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
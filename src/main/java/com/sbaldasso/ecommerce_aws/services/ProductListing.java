@@ -0,0 +1,38 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import org.springframework.data.domain.Page;
+
+// A page of products plus its conditional-GET validator. Rows are already mapped: on a search
+// cache hit they come straight from the products cache.
+public record ProductListing(Page<ProductResponse> rows) {
+
+    // Strong validator: changes whenever the page position, the total or any row's id/version does
+    public String etag() {
+        long h = mix(0, rows.getNumber());
+        h = mix(h, rows.getSize());
+        h = mix(h, rows.getTotalElements());
+        for (ProductResponse p : rows) {
+            h = mix(h, p.getId());
+            h = mix(h, p.getVersion() == null ? 0 : p.getVersion());
+        }
+        return "\"p" + Long.toHexString(fmix64(h)) + "\"";
+    }
+
+    public Page<ProductResponse> toResponse() {
+        return rows;
+    }
+
+    private static long mix(long h, long value) {
+        return (h ^ value) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
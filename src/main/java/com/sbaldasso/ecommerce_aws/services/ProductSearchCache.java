@@ -0,0 +1,184 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.SearchCacheProperties;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Result pages of GET /api/products kept as ids plus total, so a hit runs neither the search nor
+// its count query; rows are hydrated from the products cache, misses loaded by id. Keys carry the catalog generation
+// (ProductCacheInvalidator), which every product write moves on: old pages are never looked up
+// again and simply age out.
+@Component
+public class ProductSearchCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private record Key(long generation, String query, int page, int size, String sort) {
+    }
+
+    private record CachedPage(List<Long> ids, long total) {
+    }
+
+    private final ProductService productService;
+    private final ProductRepository repo;
+    private final CacheManager cacheManager;
+    private final ProductCacheInvalidator invalidator;
+    private final boolean enabled;
+    private final int maxPage;
+    private final com.github.benmanes.caffeine.cache.Cache<Key, CachedPage> pages;
+    private final Map<String, Shape> shapes = new HashMap<>();
+
+    public ProductSearchCache(ProductService productService,
+                              ProductRepository repo,
+                              CacheManager cacheManager,
+                              ProductCacheInvalidator invalidator,
+                              SearchCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.repo = repo;
+        this.cacheManager = cacheManager;
+        this.invalidator = invalidator;
+        this.enabled = properties.isEnabled();
+        this.maxPage = properties.getMaxPage();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "product-search-pages");
+
+        // Fixed set of shapes, registered once: tag values never come from user input
+        for (String query : List.of("browse", "term", "terms")) {
+            for (String page : List.of("first", "later")) {
+                shapes.put(query + "/" + page, new Shape(meterRegistry, query, page));
+            }
+        }
+    }
+
+    public ProductListing search(String name, Pageable pageable) {
+        String query = normalize(name);
+        Shape shape = shapes.get(shape(query, pageable));
+        if (!enabled || pageable.getPageNumber() > maxPage) {
+            shape.bypassed.increment();
+            return productService.search(query, pageable);
+        }
+
+        // Read before searching: a write committing meanwhile moves the generation on, and the page
+        // is stored under the old key where nobody will find it
+        Key key = new Key(invalidator.generation(), query, pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().toString());
+        CachedPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            List<ProductResponse> rows = hydrate(cached.ids());
+            if (rows != null) {
+                shape.hits.increment();
+                return new ProductListing(new PageImpl<>(rows, pageable, cached.total()));
+            }
+            pages.invalidate(key);
+        }
+
+        shape.misses.increment();
+        // The rows themselves are not cached: the search may run on a lagging replica, and the
+        // products cache would keep a pre-update row for its whole TTL. Hits hydrate instead.
+        ProductListing listing = productService.search(query, pageable);
+        List<Long> ids = new ArrayList<>(listing.rows().getNumberOfElements());
+        for (ProductResponse row : listing.rows()) {
+            ids.add(row.getId());
+        }
+        pages.put(key, new CachedPage(List.copyOf(ids), listing.rows().getTotalElements()));
+        return listing;
+    }
+
+    // Lower case, single spaces: full-text and trigram matching both ignore case and spacing, so
+    // the normalized query returns the same rows and "Blue  Shoe" shares a key with "blue shoe"
+    static String normalize(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return WHITESPACE.matcher(name.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    // Null when a listed product has disappeared: the page is stale and must be searched again
+    private List<ProductResponse> hydrate(List<Long> ids) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        ProductResponse[] rows = new ProductResponse[ids.size()];
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = products == null ? null : products.get(ids.get(i), ProductResponse.class);
+            if (rows[i] == null) {
+                missing.add(ids.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            // One query for all misses, from the primary, and only cached if no eviction raced it
+            long evictions = invalidator.evictions();
+            Map<Long, ProductResponse> loaded = new HashMap<>();
+            for (Product p : ReadYourWrites.onPrimary(() -> repo.findAllById(missing))) {
+                loaded.put(p.getId(), ProductMapper.toResponse(p));
+            }
+            invalidator.putIfNotEvicted(evictions, loaded.values());
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] == null && (rows[i] = loaded.get(ids.get(i))) == null) {
+                    return null;
+                }
+            }
+        }
+        return Arrays.asList(rows);
+    }
+
+    private static String shape(String query, Pageable pageable) {
+        String kind = query == null ? "browse" : query.indexOf(' ') < 0 ? "term" : "terms";
+        return kind + "/" + (pageable.getPageNumber() == 0 ? "first" : "later");
+    }
+
+    private static final class Shape {
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter bypassed;
+
+        private Shape(MeterRegistry meterRegistry, String query, String page) {
+            this.hits = counter(meterRegistry, query, page, "hit");
+            this.misses = counter(meterRegistry, query, page, "miss");
+            this.bypassed = counter(meterRegistry, query, page, "bypass");
+            Gauge.builder("product.search.cache.hit.ratio", this, Shape::hitRatio)
+                    .tag("query", query)
+                    .tag("page", page)
+                    .register(meterRegistry);
+        }
+
+        private double hitRatio() {
+            double lookups = hits.count() + misses.count();
+            return lookups == 0 ? 0 : hits.count() / lookups;
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String query, String page, String result) {
+            return Counter.builder("product.search.cache.requests")
+                    .tag("query", query)
+                    .tag("page", page)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package com.sbaldasso.ecommerce_aws.services;
 
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
 import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.CursorPage;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
 import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
 import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
 import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
 import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.PreconditionFailedException;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
 import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
 import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.sbaldasso.ecommerce_aws.repository.ProductSearchQuery;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.data.domain.PageImpl;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,57 +34,131 @@ import java.util.stream.Collectors;
 public class ProductService {
 
     private final ProductRepository repo;
-    private final RabbitTemplate rabbitTemplate; // Injetar RabbitTemplate
+    private final OutboxService outbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductKeyFilter keys;
 
-    public ProductService(ProductRepository repo, RabbitTemplate rabbitTemplate) {
+    public ProductService(ProductRepository repo, OutboxService outbox, ApplicationEventPublisher eventPublisher,
+                          ProductKeyFilter keys) {
         this.repo = repo;
-        this.rabbitTemplate = rabbitTemplate;
+        this.outbox = outbox;
+        this.eventPublisher = eventPublisher;
+        this.keys = keys;
     }
 
     public ProductResponse create(ProductRequest req) {
-        if (repo.existsBySku(req.getSku())) {
+        // A new SKU is usually a definite miss in the filter; the unique constraint still decides
+        if (keys.mightContainSku(req.getSku()) && repo.existsBySku(req.getSku())) {
             throw new IllegalArgumentException("SKU already exists");
         }
         Product p = ProductMapper.toEntity(req);
-        p = repo.save(p);
+        try {
+            p = repo.saveAndFlush(p);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("SKU already exists");
+        }
+        keys.addSku(p.getSku());
 
-        // Publicar evento no RabbitMQ
+        // Gravado no outbox na mesma transação; o OutboxRelay publica no RabbitMQ
         ProductCreatedEvent event = new ProductCreatedEvent(p.getId(), p.getSku());
-        rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_CREATED_QUEUE, event);
+        outbox.enqueue("Product", p.getId(), RabbitMQConfig.PRODUCT_CREATED_QUEUE, event);
+        changed(ProductChangedEvent.Type.CREATED, p.getId());
 
         return ProductMapper.toResponse(p);
     }
 
-    public ProductResponse update(Long id, ProductRequest req) {
-        Product p = repo.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-        ProductMapper.updateEntity(p, req);
-        p = repo.save(p);
+    // expectedVersions comes from If-Match; null means the update is unconditional.
+    // One UPDATE ... RETURNING: no select, dirty check or second flush.
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
+    public ProductResponse update(Long id, ProductRequest req, Collection<Long> expectedVersions) {
+        Optional<Product> updated;
+        if (expectedVersions == null) {
+            updated = repo.updateReturning(id, req.getName(), req.getDescription(), req.getPrice(), req.getQuantity());
+        } else if (expectedVersions.isEmpty()) {
+            // No tag we issued; If-Match can only fail
+            updated = Optional.empty();
+        } else {
+            updated = repo.updateReturningIfVersionIn(id, req.getName(), req.getDescription(), req.getPrice(),
+                    req.getQuantity(), expectedVersions);
+        }
+        Product p = updated.orElseThrow(() -> notUpdated(id));
+        changed(ProductChangedEvent.Type.UPDATED, id);
         return ProductMapper.toResponse(p);
     }
 
+    // sync = true: concurrent misses for the same id share a single load.
+    // The result is cached for up to an hour and feeds the body and search caches, so it is read
+    // from the primary: a lagging replica right after an update's eviction would re-cache the old
+    // row. Pinned here rather than per request because in async cache mode this runs on the
+    // cache's loader thread.
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id", sync = true)
     @Transactional(readOnly = true)
     public ProductResponse findById(Long id) {
-        return repo.findById(id)
-                .map(ProductMapper::toResponse)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        Product p = ReadYourWrites.onPrimary(() -> repo.findById(id)).orElseThrow(ProductNotFoundException::new);
+        // Teaches a filter that has not heard of this id yet (created elsewhere, not yet rebuilt)
+        keys.addIds(List.of(id));
+        return ProductMapper.toResponse(p);
+    }
+
+    // Callers normally go through ProductSearchCache
+    @Transactional(readOnly = true)
+    public ProductListing search(String name, Pageable pageable) {
+        Page<Product> page;
+        if (name == null || name.isBlank()) {
+            page = repo.findAll(pageable);
+        } else {
+            String tsQuery = ProductSearchQuery.prefixTsQuery(name);
+            page = tsQuery == null ? Page.empty(pageable) : repo.search(tsQuery, name.trim(), pageable);
+        }
+        return new ProductListing(page.map(ProductMapper::toResponse));
     }
 
     @Transactional(readOnly = true)
-    public Page<ProductResponse> search(String name, Pageable pageable) {
-        Page<Product> page = repo.findByNameContainingIgnoreCase(name == null ? "" : name, pageable);
-        return new PageImpl<>(
-                page.stream().map(ProductMapper::toResponse).collect(Collectors.toList()),
-                pageable,
-                page.getTotalElements()
+    public CursorPage<ProductResponse> scroll(String name, String sort, String cursor, int size, boolean withTotal) {
+        ProductCursor.Sort order = ProductCursor.Sort.from(sort);
+        ProductCursor position = cursor == null || cursor.isBlank()
+                ? ProductCursor.first(order)
+                : ProductCursor.decode(cursor, order);
+        String q = name == null ? "" : name;
+
+        // Fetch one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.ofSize(size + 1);
+        List<Product> rows = order == ProductCursor.Sort.NAME
+                ? repo.findNextByName(q, position.lastName(), position.lastId(), limit)
+                : repo.findNextById(q, position.lastId(), limit);
+
+        boolean hasNext = rows.size() > size;
+        List<Product> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? ProductCursor.after(order, content.get(size - 1)).encode() : null;
+        Long total = withTotal ? (q.isEmpty() ? repo.count() : repo.countByNameContaining(q)) : null;
+
+        return new CursorPage<>(
+                content.stream().map(ProductMapper::toResponse).collect(Collectors.toList()),
+                content.size(),
+                hasNext,
+                nextCursor,
+                total
         );
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id")
     public void delete(Long id) {
-        if (!repo.existsById(id)) {
-            throw new IllegalArgumentException("Product not found");
+        if (repo.deleteRowById(id) == 0) {
+            throw new ProductNotFoundException();
         }
-        repo.deleteById(id);
+        changed(ProductChangedEvent.Type.DELETED, id);
+    }
+
+    // Failure path only: tells a missing product apart from a stale If-Match
+    private RuntimeException notUpdated(Long id) {
+        return repo.findVersionById(id)
+                .<RuntimeException>map(version ->
+                        new PreconditionFailedException("Product " + id + " is at version " + version))
+                .orElseGet(ProductNotFoundException::new);
+    }
+
+    private void changed(ProductChangedEvent.Type type, Long id) {
+        eventPublisher.publishEvent(new ProductChangedEvent(type, List.of(id)));
     }
 }
 
@@ -0,0 +1,5 @@
+-- Keyset pagination seeks on (name, id); a plain index on name cannot order ties by id
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products(name, id);
+
+-- Superseded by idx_products_name_id, which also serves lookups on name alone
+DROP INDEX IF EXISTS idx_products_name;
@@ -0,0 +1,3 @@
+-- Hibernate's pooled optimizer reserves 50 ids per nextval so inserts can be JDBC-batched.
+-- Must match @SequenceGenerator(allocationSize) on Product.
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
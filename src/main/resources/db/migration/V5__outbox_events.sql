@@ -0,0 +1,16 @@
+-- Transactional outbox: messages are written with the business change and relayed to RabbitMQ
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(100) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    exchange VARCHAR(255) NOT NULL,
+    routing_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    headers TEXT,
+    payload BYTEA NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Pooled id allocation so outbox rows batch together with bulk product inserts
+ALTER SEQUENCE outbox_events_id_seq INCREMENT BY 50;
@@ -0,0 +1,20 @@
+-- Shared Bucket4j state for rate-limit.mode=distributed, one row per client key
+CREATE TABLE IF NOT EXISTS rate_limit_buckets (
+    id VARCHAR(255) PRIMARY KEY,
+    state BYTEA,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Bucket4j only writes id/state, so the trigger keeps updated_at current for the idle purge
+CREATE OR REPLACE FUNCTION rate_limit_buckets_touch() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER rate_limit_buckets_touch
+    BEFORE UPDATE ON rate_limit_buckets
+    FOR EACH ROW EXECUTE FUNCTION rate_limit_buckets_touch();
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_updated_at ON rate_limit_buckets (updated_at);
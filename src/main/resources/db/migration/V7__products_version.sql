@@ -0,0 +1,2 @@
+-- Optimistic locking and ETag source: incremented by Hibernate (@Version) and by the bulk import merge
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,19 @@
+-- The relay claims rows by pushing claimed_until into the future and commits before publishing,
+-- so no row lock or connection is held while it waits for broker confirms. An expired claim
+-- (relay crashed, or a failed publish backing off) makes the row eligible again.
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMPTZ;
+
+-- Rows the broker kept returning or nacking past outbox.max-attempts, kept for inspection or replay
+CREATE TABLE IF NOT EXISTS outbox_dead_letters (
+    id BIGINT PRIMARY KEY,
+    aggregate_type VARCHAR(100) NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    exchange VARCHAR(255) NOT NULL,
+    routing_key VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100),
+    headers TEXT,
+    payload BYTEA NOT NULL,
+    attempts INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    dead_lettered_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,87 @@
+package com.sbaldasso.ecommerce_aws.aspect;
+
+import com.sbaldasso.ecommerce_aws.config.LoggingAspectProperties;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoggingAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private SampleController controller;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        LoggingAspectProperties properties = new LoggingAspectProperties();
+        properties.setLogArgs(true);
+        properties.setArgsSampleRate(1.0);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleController());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggingAspect(new MethodTimers(registry, properties), properties));
+        controller = factory.getProxy();
+    }
+
+    @Test
+    void recordsOneTimerPerMethodAndOutcome() {
+        controller.echo("a");
+        controller.echo("b");
+        assertThatThrownBy(() -> controller.fail()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("echo", "success").count()).isEqualTo(2);
+        assertThat(timer("fail", "error").count()).isEqualTo(1);
+        assertThat(registry.find(MethodTimers.METRIC_NAME).timers()).hasSize(4);
+    }
+
+    @Test
+    void notFoundIsStillTimedAsAnError() {
+        assertThatThrownBy(() -> controller.missing()).isInstanceOf(ProductNotFoundException.class);
+
+        assertThat(timer("missing", "error").count()).isEqualTo(1);
+    }
+
+    @Test
+    void formatArgsMatchesArraysToStringWhenShort() {
+        assertThat(LoggingAspect.formatArgs(new Object[]{1, "x", null}, 256)).isEqualTo("[1, x, null]");
+        assertThat(LoggingAspect.formatArgs(new Object[0], 256)).isEqualTo("[]");
+    }
+
+    @Test
+    void formatArgsIsTruncated() {
+        String formatted = LoggingAspect.formatArgs(new Object[]{"a".repeat(1000), "b"}, 16);
+
+        assertThat(formatted).hasSize(20).endsWith("...]");
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.get(MethodTimers.METRIC_NAME)
+                .tag("layer", "controller")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    @RestController
+    static class SampleController {
+
+        public String echo(String value) {
+            return value;
+        }
+
+        public String fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        public String missing() {
+            throw new ProductNotFoundException();
+        }
+    }
+}
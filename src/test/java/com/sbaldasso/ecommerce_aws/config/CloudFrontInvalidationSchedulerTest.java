@@ -0,0 +1,163 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudfront.CloudFrontClient;
+import software.amazon.awssdk.services.cloudfront.model.CreateInvalidationRequest;
+import software.amazon.awssdk.services.cloudfront.model.CreateInvalidationResponse;
+import software.amazon.awssdk.services.cloudfront.model.Invalidation;
+import software.amazon.awssdk.services.cloudfront.model.TooManyInvalidationsInProgressException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CloudFrontInvalidationSchedulerTest {
+
+    private FakeCloudFrontClient client;
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private CloudFrontInvalidationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        AwsProperties properties = new AwsProperties();
+        properties.getCloudfront().setDebounce(Duration.ofSeconds(5));
+        properties.getCloudfront().setMaxDelay(Duration.ofSeconds(30));
+        properties.getCloudfront().setMaxPaths(10);
+        properties.getCloudfront().setListPaths(List.of("/api/products"));
+        properties.getCloudfront().setInitialBackoff(Duration.ofSeconds(4));
+
+        client = new FakeCloudFrontClient();
+        clock = new MutableClock();
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new CloudFrontInvalidationScheduler(new CloudFrontService(client), properties, meterRegistry, clock);
+    }
+
+    @Test
+    void burstOfWritesIsSentAsOneInvalidation() {
+        scheduler.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, List.of(1L, 2L)));
+        scheduler.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, List.of(2L)));
+
+        clock.advance(Duration.ofSeconds(4));
+        scheduler.flush();
+        assertThat(client.requests).isEmpty();
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.flush();
+
+        assertThat(client.requests).hasSize(1);
+        assertThat(client.requests.get(0).invalidationBatch().paths().items())
+                .containsExactly("/api/products", "/api/products/1", "/api/products/2");
+        assertThat(meterRegistry.counter("cloudfront.invalidation.coalesced").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void steadyWritesAreFlushedAfterMaxDelay() {
+        for (int second = 0; second <= 30; second++) {
+            scheduler.enqueue(List.of(1L));
+            scheduler.flush();
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        assertThat(client.requests).hasSize(1);
+    }
+
+    @Test
+    void batchOverBudgetEscalatesToWildcard() {
+        scheduler.enqueue(LongStream.rangeClosed(1, 20).boxed().toList());
+
+        clock.advance(Duration.ofSeconds(5));
+        scheduler.flush();
+
+        assertThat(client.requests).hasSize(1);
+        assertThat(client.requests.get(0).invalidationBatch().paths().items()).containsExactly("/api/products*");
+        assertThat(meterRegistry.counter("cloudfront.invalidation.escalated").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void failedBatchIsRetriedWithBackoff() {
+        client.failuresLeft = 2;
+        scheduler.enqueue(List.of(7L));
+        clock.advance(Duration.ofSeconds(5));
+
+        scheduler.flush();
+        clock.advance(Duration.ofSeconds(3));
+        scheduler.flush();
+        assertThat(client.requests).hasSize(1);
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.flush();
+        // Second failure doubles the wait to 8s
+        clock.advance(Duration.ofSeconds(7));
+        scheduler.flush();
+        assertThat(client.requests).hasSize(2);
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.flush();
+
+        assertThat(client.requests).hasSize(3);
+        assertThat(client.requests.get(2).invalidationBatch().paths().items())
+                .containsExactly("/api/products", "/api/products/7");
+        assertThat(meterRegistry.counter("cloudfront.invalidation.failed").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("cloudfront.invalidation.requests").count()).isEqualTo(1.0);
+    }
+
+    static class FakeCloudFrontClient implements CloudFrontClient {
+        final List<CreateInvalidationRequest> requests = new CopyOnWriteArrayList<>();
+        int failuresLeft;
+
+        @Override
+        public CreateInvalidationResponse createInvalidation(CreateInvalidationRequest request) {
+            requests.add(request);
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw TooManyInvalidationsInProgressException.builder().message("throttled").build();
+            }
+            return CreateInvalidationResponse.builder()
+                    .invalidation(Invalidation.builder().id("I" + requests.size()).build())
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
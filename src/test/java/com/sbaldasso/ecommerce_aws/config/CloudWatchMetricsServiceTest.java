@@ -0,0 +1,114 @@
+package com.sbaldasso.ecommerce_aws.config;
+
+import com.sbaldasso.ecommerce_aws.metrics.RequestMetricsAggregator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.PutMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CloudWatchMetricsServiceTest {
+
+    private FakeCloudWatchClient client;
+    private RequestMetricsAggregator aggregator;
+    private SimpleMeterRegistry meterRegistry;
+    private CloudWatchMetricsService service;
+
+    @BeforeEach
+    void setUp() {
+        AwsProperties properties = new AwsProperties();
+        properties.getCloudwatch().setNamespace("Test/Backend");
+        properties.getCloudwatch().setBatchSize(10);
+        properties.getCloudwatch().setQueueCapacity(25);
+
+        client = new FakeCloudWatchClient();
+        aggregator = new RequestMetricsAggregator(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new CloudWatchMetricsService(client, aggregator, properties, meterRegistry);
+    }
+
+    @Test
+    void requestsAreAggregatedIntoOneBatch() {
+        for (int i = 0; i < 1000; i++) {
+            aggregator.record("GET", "/api/products/{id}", 200, 3_000_000L);
+        }
+        aggregator.record("GET", "/api/products/{id}", 404, 40_000_000L);
+
+        service.flush();
+
+        assertThat(client.requests).hasSize(1);
+        PutMetricDataRequest request = client.requests.get(0);
+        assertThat(request.namespace()).isEqualTo("Test/Backend");
+
+        MetricDatum latency = datum(request, "RequestLatency", true);
+        assertThat(latency.values()).containsExactly(5.0, 50.0);
+        assertThat(latency.counts()).containsExactly(1000.0, 1.0);
+
+        MetricDatum duration = datum(request, "RequestDuration", false);
+        assertThat(duration.statisticValues().sampleCount()).isEqualTo(1001.0);
+        assertThat(duration.statisticValues().maximum()).isEqualTo(40.0);
+        assertThat(datum(request, "ErrorCount", false).value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void queuedMetricsAreSentInFullBatches() {
+        for (int i = 0; i < 25; i++) {
+            service.publishMetric("HealthCheck", 1.0, StandardUnit.COUNT);
+        }
+
+        service.flush();
+
+        assertThat(client.requests).extracting(r -> r.metricData().size()).containsExactly(10, 10, 5);
+    }
+
+    @Test
+    void overflowIsDroppedAndCounted() {
+        for (int i = 0; i < 30; i++) {
+            service.publishMetric("HealthCheck", 1.0, StandardUnit.COUNT);
+        }
+
+        assertThat(meterRegistry.counter("cloudwatch.metrics.dropped").count()).isEqualTo(5.0);
+        assertThat(client.requests).isEmpty();
+    }
+
+    @Test
+    void nothingIsSentWhenIdle() {
+        service.flush();
+
+        assertThat(client.requests).isEmpty();
+    }
+
+    private static MetricDatum datum(PutMetricDataRequest request, String name, boolean withDimensions) {
+        return request.metricData().stream()
+                .filter(d -> d.metricName().equals(name) && d.dimensions().isEmpty() != withDimensions)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    static class FakeCloudWatchClient implements CloudWatchClient {
+        final List<PutMetricDataRequest> requests = new CopyOnWriteArrayList<>();
+
+        @Override
+        public PutMetricDataResponse putMetricData(PutMetricDataRequest putMetricDataRequest) {
+            requests.add(putMetricDataRequest);
+            return PutMetricDataResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.sbaldasso.ecommerce_aws.controllers;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.exception.GlobalExceptionHandler;
+import com.sbaldasso.ecommerce_aws.exception.PreconditionFailedException;
+import com.sbaldasso.ecommerce_aws.services.ProductBatchService;
+import com.sbaldasso.ecommerce_aws.services.ProductBodyCache;
+import com.sbaldasso.ecommerce_aws.services.ProductExportService;
+import com.sbaldasso.ecommerce_aws.services.ProductImportService;
+import com.sbaldasso.ecommerce_aws.services.ProductListing;
+import com.sbaldasso.ecommerce_aws.services.ProductSearchCache;
+import com.sbaldasso.ecommerce_aws.services.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Conditional requests against the controller alone: services are mocks, errors go through
+// GlobalExceptionHandler as they do in the application
+class ProductControllerTest {
+
+    private static final Instant UPDATED_AT = Instant.parse("2024-01-15T10:15:30Z");
+    private static final String BODY = "{\"sku\":\"SHOE-001\",\"name\":\"Trail Shoe\",\"price\":109.90,\"quantity\":7}";
+
+    private ProductService svc;
+    private ProductBodyCache bodies;
+    private ProductSearchCache searchCache;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        svc = mock(ProductService.class);
+        bodies = mock(ProductBodyCache.class);
+        searchCache = mock(ProductSearchCache.class);
+        ProductController controller = new ProductController(svc, mock(ProductBatchService.class),
+                mock(ProductExportService.class), mock(ProductImportService.class), bodies, searchCache);
+        mvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        byte[] json = "{\"id\":1,\"version\":3}".getBytes(StandardCharsets.UTF_8);
+        when(bodies.get(1L)).thenReturn(
+                new ProductBodyCache.ProductBody(1L, 3L, "\"3\"", UPDATED_AT.toEpochMilli(), json, null, null));
+        when(bodies.get(2L)).thenReturn(new ProductBodyCache.ProductBody(2L, 5L, "\"5\"", UPDATED_AT.toEpochMilli(),
+                json, new byte[]{31, -117, 8}, "\"5-gz\""));
+        when(svc.update(eq(1L), any(), any())).thenReturn(response(1L, 4L));
+        when(searchCache.search(any(), any())).thenReturn(new ProductListing(
+                new PageImpl<>(List.of(response(1L, 3L)), PageRequest.of(0, 10), 1)));
+    }
+
+    @Test
+    void getAnswersAMatchingIfNoneMatchWith304() throws Exception {
+        mvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getAnswersAnUnchangedIfModifiedSinceWith304() throws Exception {
+        mvc.perform(get("/api/products/1").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(UPDATED_AT)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getSendsTheValidatorsWithTheBody() throws Exception {
+        mvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string("{\"id\":1,\"version\":3}"));
+    }
+
+    @Test
+    void gzipAndIdentityBodiesCarryTheirOwnEtags() throws Exception {
+        mvc.perform(get("/api/products/2").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-gz\""));
+        mvc.perform(get("/api/products/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+    }
+
+    @Test
+    void anEtagOnlyValidatesItsOwnEncoding() throws Exception {
+        mvc.perform(get("/api/products/2").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"5-gz\""))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/products/2").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listAnswersAMatchingIfNoneMatchWith304() throws Exception {
+        String etag = mvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void listIgnoresIfModifiedSince() throws Exception {
+        // The rows' timestamps cannot tell that a row was deleted or the page shifted
+        mvc.perform(get("/api/products").header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(UPDATED_AT.plusSeconds(3600))))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void aStaleIfMatchIs412() throws Exception {
+        when(svc.update(eq(1L), any(), anyCollection()))
+                .thenThrow(new PreconditionFailedException("Product 1 is at version 3"));
+
+        mvc.perform(put("/api/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .content(BODY))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void aMatchingIfMatchReturnsTheNewEtag() throws Exception {
+        mvc.perform(put("/api/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void ifMatchListsAreParsedIntoVersions() throws Exception {
+        assertThat(expectedVersionsFor("\"1\", \"2\" ,\"3\"")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void weakAndMalformedIfMatchTagsNeverMatch() throws Exception {
+        // Present but unusable: an empty set, so the update is refused rather than made unconditional
+        assertThat(expectedVersionsFor("W/\"3\"")).isEmpty();
+        assertThat(expectedVersionsFor("3")).isEmpty();
+        assertThat(expectedVersionsFor("\"abc\"")).isEmpty();
+        assertThat(expectedVersionsFor("\"\"")).isEmpty();
+        assertThat(expectedVersionsFor("\"3")).isEmpty();
+        assertThat(expectedVersionsFor("W/\"2\", \"3\"")).containsExactly(3L);
+    }
+
+    @Test
+    void theGzipTagNamesTheSameVersion() throws Exception {
+        assertThat(expectedVersionsFor("\"3-gz\"")).containsExactly(3L);
+        assertThat(expectedVersionsFor("\"-gz\"")).isEmpty();
+    }
+
+    @Test
+    void aWildcardIfMatchIsUnconditional() throws Exception {
+        assertThat(expectedVersionsFor("*")).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Long> expectedVersionsFor(String ifMatch) throws Exception {
+        clearInvocations(svc);
+
+        mvc.perform(put("/api/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, ifMatch)
+                        .content(BODY))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Collection<Long>> versions = ArgumentCaptor.forClass(Collection.class);
+        verify(svc).update(eq(1L), any(), versions.capture());
+        return versions.getValue();
+    }
+
+    private static ProductResponse response(Long id, Long version) {
+        ProductResponse response = new ProductResponse();
+        response.setId(id);
+        response.setSku("SHOE-001");
+        response.setName("Trail Shoe");
+        response.setPrice(new BigDecimal("109.90"));
+        response.setQuantity(7);
+        response.setUpdatedAt(UPDATED_AT);
+        response.setVersion(version);
+        return response;
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,195 @@
+package com.sbaldasso.ecommerce_aws.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two independent servers stand in for primary and replica; current_database() tells them apart
+@Testcontainers
+class ReplicaRoutingIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("primary");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("replica");
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<EntityManagerFactory> factories = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void closePools() {
+        factories.forEach(EntityManagerFactory::close);
+        pools.forEach(HikariDataSource::close);
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", pool(replica)));
+        routing.checkReplicas();
+
+        assertThat(database(routing, true)).isEqualTo("replica");
+        assertThat(database(routing, false)).isEqualTo("primary");
+    }
+
+    @Test
+    void pinnedReadsStayOnThePrimary() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", pool(replica)));
+        routing.checkReplicas();
+
+        ReadYourWrites.pin();
+
+        assertThat(database(routing, true)).isEqualTo("primary");
+        assertThat(meterRegistry.counter("datasource.routing", "target", "pinned").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void readOnlyJpaTransactionsGoToTheReplica() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", pool(replica)));
+        routing.checkReplicas();
+        JpaFixture jpa = jpa(routing);
+
+        // JpaTransactionManager touches the connection when it begins; the lazy proxy must still
+        // defer the routing decision until the read-only flag is bound
+        assertThat(jpa.database(true)).isEqualTo("replica");
+        assertThat(jpa.database(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void readsPinnedInsideAJpaTransactionUseThePrimary() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", pool(replica)));
+        routing.checkReplicas();
+        JpaFixture jpa = jpa(routing);
+        TransactionTemplate tx = new TransactionTemplate(jpa.transactionManager);
+        tx.setReadOnly(true);
+
+        String database = tx.execute(status -> ReadYourWrites.onPrimary(jpa::currentDatabase));
+
+        assertThat(database).isEqualTo("primary");
+        assertThat(ReadYourWrites.isPinned()).isFalse();
+        assertThat(meterRegistry.counter("datasource.routing", "target", "pinned").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void unreachableReplicaIsSkipped() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("down", unreachablePool());
+        replicas.put("replica-1", pool(replica));
+        ReplicaRoutingDataSource routing = routing(replicas);
+        routing.checkReplicas();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(database(routing, true)).isEqualTo("replica");
+        }
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("replica", "down").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWithoutHealthyReplicas() {
+        ReplicaRoutingDataSource routing = routing(Map.of("down", unreachablePool()));
+        routing.checkReplicas();
+
+        assertThat(database(routing, true)).isEqualTo("primary");
+        assertThat(meterRegistry.counter("datasource.routing", "target", "fallback").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void replicasAreUnusedBeforeTheFirstCheck() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-1", pool(replica)));
+
+        assertThat(database(routing, true)).isEqualTo("primary");
+    }
+
+    private ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        return new ReplicaRoutingDataSource(pool(primary), replicas, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    private static String database(ReplicaRoutingDataSource routing, boolean readOnly) {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        return tx.execute(status -> jdbc.queryForObject("SELECT current_database()", String.class));
+    }
+
+    private JpaFixture jpa(ReplicaRoutingDataSource routing) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new LazyConnectionDataSourceProxy(routing));
+        factory.setPackagesToScan("com.sbaldasso.ecommerce_aws.entities");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // No metadata lookups at boot: every connection the test sees is one it asked for
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect",
+                "hibernate.boot.allow_jdbc_metadata_access", "false"));
+        factory.afterPropertiesSet();
+        EntityManagerFactory emf = factory.getObject();
+        factories.add(emf);
+        return new JpaFixture(emf, new JpaTransactionManager(emf));
+    }
+
+    private record JpaFixture(EntityManagerFactory emf, JpaTransactionManager transactionManager) {
+
+        String database(boolean readOnly) {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(readOnly);
+            return tx.execute(status -> currentDatabase());
+        }
+
+        // Must run inside a transaction of transactionManager
+        String currentDatabase() {
+            EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+            return (String) em.createNativeQuery("SELECT current_database()").getSingleResult();
+        }
+    }
+
+    private HikariDataSource pool(PostgreSQLContainer<?> container) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(container.getJdbcUrl());
+        config.setUsername(container.getUsername());
+        config.setPassword(container.getPassword());
+        config.setMaximumPoolSize(2);
+        return track(new HikariDataSource(config));
+    }
+
+    private HikariDataSource unreachablePool() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:postgresql://127.0.0.1:1/replica");
+        config.setConnectionTimeout(250);
+        config.setInitializationFailTimeout(-1);
+        return track(new HikariDataSource(config));
+    }
+
+    private HikariDataSource track(HikariDataSource pool) {
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sbaldasso.ecommerce_aws.messaging;
+
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductEventsMessageConverterTest {
+
+    private final ProductEventsMessageConverter json = new ProductEventsMessageConverter(false);
+    private final ProductEventsMessageConverter binary = new ProductEventsMessageConverter(true);
+
+    @Test
+    void binaryEventsRoundTripWithoutTypeHeaders() {
+        ProductCreatedEvent event = new ProductCreatedEvent(1_234_567_890_123L, "SKU-ÄÖ-001");
+
+        Message message = binary.toMessage(event, new MessageProperties());
+
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(ProductEventBinaryConverter.CONTENT_TYPE);
+        assertThat(message.getMessageProperties().getHeaders()).isEmpty();
+        assertThat(message.getBody()).hasSizeLessThan(json.toMessage(event, new MessageProperties()).getBody().length);
+        assertThat(binary.fromMessage(message)).isEqualTo(event);
+        // Consumers read whichever format arrives
+        assertThat(json.fromMessage(message)).isEqualTo(event);
+    }
+
+    @Test
+    void binaryEventsAreSmallerOnTheWireHeadersIncluded() {
+        ProductCreatedEvent event = new ProductCreatedEvent(1_048_576L, "SKU-1048576");
+
+        int binaryBytes = wireBytes(binary.toMessage(event, new MessageProperties()));
+        int jsonBytes = wireBytes(json.toMessage(event, new MessageProperties()));
+
+        // JSON carries the __TypeId__ header on top of the larger body
+        assertThat(binaryBytes).isLessThan(jsonBytes / 2);
+    }
+
+    @Test
+    void nullSkuIsPreserved() {
+        ProductCreatedEvent event = new ProductCreatedEvent(7L, null);
+
+        assertThat(binary.fromMessage(binary.toMessage(event, new MessageProperties()))).isEqualTo(event);
+    }
+
+    @Test
+    void otherPayloadsAndJsonModeStayJson() {
+        Message other = binary.toMessage(Map.of("ids", 3), new MessageProperties());
+        Message event = json.toMessage(new ProductCreatedEvent(1L, "SKU-1"), new MessageProperties());
+
+        assertThat(other.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        assertThat(event.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        assertThat(binary.fromMessage(event)).isEqualTo(new ProductCreatedEvent(1L, "SKU-1"));
+    }
+
+    @Test
+    void unknownVersionsAndTruncatedBodiesAreRejected() {
+        byte[] body = binary.toMessage(new ProductCreatedEvent(300L, "SKU-300"), new MessageProperties()).getBody();
+
+        byte[] future = body.clone();
+        future[0] = 2;
+        byte[] truncated = Arrays.copyOf(body, body.length - 2);
+
+        assertThatThrownBy(() -> binary.fromMessage(binaryMessage(future)))
+                .isInstanceOf(MessageConversionException.class)
+                .hasMessageContaining("version");
+        assertThatThrownBy(() -> binary.fromMessage(binaryMessage(truncated)))
+                .isInstanceOf(MessageConversionException.class);
+    }
+
+    // Body plus application headers, as they would travel in the AMQP frame
+    private static int wireBytes(Message message) {
+        return message.getBody().length + message.getMessageProperties().getHeaders().entrySet().stream()
+                .mapToInt(e -> e.getKey().length() + String.valueOf(e.getValue()).getBytes(StandardCharsets.UTF_8).length)
+                .sum();
+    }
+
+    private static Message binaryMessage(byte[] body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(ProductEventBinaryConverter.CONTENT_TYPE);
+        return new Message(body, properties);
+    }
+}
@@ -0,0 +1,81 @@
+package com.sbaldasso.ecommerce_aws.repository;
+
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductSearchIntegrationTest {
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @BeforeEach
+    void seed() {
+        repo.deleteAll();
+        repo.save(product("SHOE-001", "Running Shoe", "Lightweight trail running shoe", "10.00", 1));
+        repo.save(product("SHOE-002", "Leather Boot", "Waterproof boot for hiking", "10.00", 1));
+        repo.save(product("HAT-001", "Summer Hat", "Straw hat, pairs well with a running shoe", "10.00", 1));
+        repo.flush();
+    }
+
+    @Test
+    void matchesPrefixesAndRanksNameAboveDescription() {
+        Page<Product> page = search("runn sho");
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Product::getSku).containsExactly("SHOE-001", "HAT-001");
+    }
+
+    @Test
+    void matchesSku() {
+        assertThat(search("shoe-002").getContent()).first().extracting(Product::getSku).isEqualTo("SHOE-002");
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertThat(search("Leathr").getContent()).extracting(Product::getSku).containsExactly("SHOE-002");
+    }
+
+    @Test
+    void matchesAreServedByGinIndexes() {
+        EntityManager entityManager = em.getEntityManager();
+        // On a three-row table the planner would otherwise always pick a sequential scan
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        List<?> plan = entityManager.createNativeQuery("EXPLAIN SELECT id FROM products "
+                + "WHERE search_vector @@ to_tsquery('simple', 'shoe:*') OR 'shoe' <% name").getResultList();
+
+        assertThat(plan.toString()).contains("idx_products_search_vector", "idx_products_name_trgm");
+    }
+
+    @Test
+    void rejectsInputWithoutTerms() {
+        assertThat(ProductSearchQuery.prefixTsQuery("  -- !! ")).isNull();
+        assertThat(ProductSearchQuery.prefixTsQuery("Blue  sho'")).isEqualTo("blue:* & sho:*");
+    }
+
+    private Page<Product> search(String q) {
+        return repo.search(ProductSearchQuery.prefixTsQuery(q), q, PageRequest.of(0, 10));
+    }
+}
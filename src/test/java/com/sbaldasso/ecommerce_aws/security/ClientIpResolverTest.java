@@ -0,0 +1,61 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientIpResolverTest {
+
+    private static final String PEER = "172.31.0.2";
+
+    @Test
+    void withoutTrustedProxiesTheHeaderIsIgnored() {
+        assertThat(resolve("203.0.113.7", 0)).isEqualTo(PEER);
+    }
+
+    @Test
+    void aSingleHopIsTheClient() {
+        assertThat(resolve("203.0.113.7", 1)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void spoofedLeadingEntriesAreSkipped() {
+        // The client sent "1.1.1.1, 2.2.2.2" itself; the ALB appended the address it saw
+        assertThat(resolve("1.1.1.1, 2.2.2.2, 203.0.113.7", 1)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void eachTrustedProxyAccountsForOneHopFromTheRight() {
+        assertThat(resolve("1.1.1.1, 203.0.113.7, 10.0.0.5", 2)).isEqualTo("203.0.113.7");
+        assertThat(resolve("203.0.113.7,10.0.0.5", 2)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void fewerHopsThanTrustedProxiesFallBackToThePeer() {
+        assertThat(resolve("203.0.113.7", 2)).isEqualTo(PEER);
+    }
+
+    @Test
+    void surroundingWhitespaceIsTrimmed() {
+        assertThat(resolve("1.1.1.1,  203.0.113.7\t ", 1)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    void malformedHeadersFallBackToThePeer() {
+        assertThat(resolve(null, 1)).isEqualTo(PEER);
+        assertThat(resolve("", 1)).isEqualTo(PEER);
+        assertThat(resolve("   ", 1)).isEqualTo(PEER);
+        assertThat(resolve("203.0.113.7, ", 1)).isEqualTo(PEER);
+        assertThat(resolve(",,", 2)).isEqualTo(PEER);
+    }
+
+    private static String resolve(String forwardedFor, int trustedProxies) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.setRemoteAddr(PEER);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return ClientIpResolver.resolve(request, trustedProxies);
+    }
+}
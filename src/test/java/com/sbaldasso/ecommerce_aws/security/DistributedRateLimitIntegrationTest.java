@@ -0,0 +1,106 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import com.sbaldasso.ecommerce_aws.config.DistributedRateLimitConfig;
+import com.sbaldasso.ecommerce_aws.config.RateLimitConfig;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@Import(PostgresContainerConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DistributedRateLimitIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void limitIsSharedAcrossTasks() {
+        RateLimitConfig config = config(0);
+        Bucket taskA = task(config).create("10.0.0.1");
+        Bucket taskB = task(config).create("10.0.0.1");
+
+        int allowed = drain(taskA, 15) + drain(taskB, 15);
+
+        assertThat(allowed).isEqualTo(20);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM rate_limit_buckets WHERE id = '10.0.0.1'", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void prefetchOvershootIsBoundedPerTask() {
+        RateLimitConfig config = config(5);
+        Bucket taskA = task(config).create("10.0.0.2");
+        Bucket taskB = task(config).create("10.0.0.2");
+
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += drain(taskA, 1) + drain(taskB, 1);
+        }
+
+        // Each task may run ahead of the shared state by at most its prefetch
+        assertThat(allowed).isBetween(20, 20 + 2 * 5);
+    }
+
+    @Test
+    void keysAreIndependent() {
+        RateLimitConfig config = config(0);
+        RateLimitBucketFactory factory = task(config);
+
+        assertThat(drain(factory.create("10.0.0.3"), 25)).isEqualTo(20);
+        assertThat(drain(factory.create("10.0.0.4"), 25)).isEqualTo(20);
+    }
+
+    @Test
+    void janitorRemovesIdleBuckets() {
+        RateLimitConfig config = config(0);
+        drain(task(config).create("10.0.0.5"), 1);
+        jdbcTemplate.execute("ALTER TABLE rate_limit_buckets DISABLE TRIGGER rate_limit_buckets_touch");
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET updated_at = now() - interval '1 day' WHERE id = '10.0.0.5'");
+        jdbcTemplate.execute("ALTER TABLE rate_limit_buckets ENABLE TRIGGER rate_limit_buckets_touch");
+
+        new RateLimitBucketJanitor(jdbcTemplate, config).purgeIdleBuckets();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM rate_limit_buckets WHERE id = '10.0.0.5'", Integer.class)).isZero();
+    }
+
+    // A fresh proxy manager per call stands in for a separate ECS task
+    private RateLimitBucketFactory task(RateLimitConfig config) {
+        DistributedRateLimitConfig distributed = new DistributedRateLimitConfig();
+        return distributed.distributedBucketFactory(distributed.rateLimitProxyManager(dataSource, config), config);
+    }
+
+    private static RateLimitConfig config(long prefetchTokens) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setMode(RateLimitConfig.Mode.DISTRIBUTED);
+        config.setCapacity(20);
+        config.setRefillTokens(20);
+        config.setRefillDuration("1h");
+        config.getDistributed().setPrefetchTokens(prefetchTokens);
+        config.getDistributed().setMaxUnsyncedPeriod("1h");
+        return config;
+    }
+
+    private static int drain(Bucket bucket, int attempts) {
+        int allowed = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (bucket.tryConsume(1)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,87 @@
+package com.sbaldasso.ecommerce_aws.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.sbaldasso.ecommerce_aws.config.RateLimitConfig;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitingFilterTest {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private RateLimitConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private Cache<String, Bucket> buckets;
+    private RateLimitingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        config.setCapacity(2);
+        config.setRefillTokens(2);
+        config.setMaxBuckets(10);
+        config.setTrustedProxies(1);
+        meterRegistry = new SimpleMeterRegistry();
+        buckets = config.rateLimitBuckets(meterRegistry);
+        filter = new RateLimitingFilter(config, buckets, config.localBucketFactory(), meterRegistry);
+    }
+
+    @Test
+    void requestsOverCapacityAreRejected() throws Exception {
+        assertThat(status("203.0.113.7")).isEqualTo(200);
+        assertThat(status("203.0.113.7")).isEqualTo(200);
+        assertThat(status("203.0.113.7")).isEqualTo(429);
+        assertThat(meterRegistry.counter("rate.limit.rejected").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void spoofedEntriesDoNotBuyAFreshBucket() throws Exception {
+        status("203.0.113.7");
+        status("203.0.113.7");
+
+        assertThat(status("198.51.100.1, 203.0.113.7")).isEqualTo(429);
+        assertThat(status("198.51.100.2, 203.0.113.7")).isEqualTo(429);
+        assertThat(buckets.asMap()).containsOnlyKeys("203.0.113.7");
+    }
+
+    @Test
+    void theBucketStoreStaysWithinMaxBuckets() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            status("10.0.0." + i);
+        }
+        buckets.cleanUp();
+
+        assertThat(buckets.estimatedSize()).isLessThanOrEqualTo(config.getMaxBuckets());
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "rate-limit-buckets").functionCounter().count())
+                .isGreaterThanOrEqualTo(90.0);
+    }
+
+    @Test
+    void idleBucketsOutliveAFullRefill() {
+        config.setCapacity(100);
+        config.setRefillTokens(10);
+        config.setRefillDuration("1m");
+        config.setBucketIdleTimeout("1m");
+
+        // 100 tokens at 10 a minute: evicting sooner would hand a throttled client a full bucket
+        assertThat(config.idleTimeout()).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    private int status(String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.setRemoteAddr("172.31.0.2");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NOOP_CHAIN);
+        return response.getStatus();
+    }
+}
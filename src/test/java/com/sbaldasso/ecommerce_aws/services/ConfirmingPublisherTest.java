@@ -0,0 +1,111 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfirmingPublisherTest {
+
+    private FakeBroker broker;
+    private SimpleMeterRegistry meterRegistry;
+    private ConfirmingPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        broker = new FakeBroker();
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new ConfirmingPublisher(broker, meterRegistry);
+    }
+
+    @Test
+    void ackedMessagesAreConfirmed() {
+        ConfirmingPublisher.Result result = publisher.publish(batch("1", "2", "3"), Duration.ofSeconds(1), 2);
+
+        assertThat(result.confirmed()).containsExactlyInAnyOrder("1", "2", "3");
+        assertThat(result.rejected()).isEmpty();
+        assertThat(meterRegistry.get("rabbitmq.publish.confirm").tag("result", "ack").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("rabbitmq.publish.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void nackedMessagesAreResentOnly() {
+        broker.nacksLeft.put("2", 1);
+
+        ConfirmingPublisher.Result result = publisher.publish(batch("1", "2", "3"), Duration.ofSeconds(1), 2);
+
+        assertThat(result.confirmed()).containsExactlyInAnyOrder("1", "2", "3");
+        assertThat(broker.sent).containsExactly("1", "2", "3", "2");
+        assertThat(meterRegistry.counter("rabbitmq.publish.retried").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void retriesAreBounded() {
+        broker.nacksLeft.put("1", 10);
+
+        ConfirmingPublisher.Result result = publisher.publish(batch("1"), Duration.ofSeconds(1), 2);
+
+        assertThat(result.confirmed()).isEmpty();
+        assertThat(result.rejected()).containsExactly("1");
+        assertThat(broker.sent).hasSize(3);
+    }
+
+    @Test
+    void unconfirmedAndReturnedMessagesAreNotConfirmed() {
+        broker.silent.add("1");
+        broker.unroutable.add("2");
+
+        ConfirmingPublisher.Result result = publisher.publish(batch("1", "2", "3"), Duration.ofMillis(50), 2);
+
+        assertThat(result.confirmed()).containsExactly("3");
+        // Returned is the message's fault; a missing confirm is not
+        assertThat(result.rejected()).containsExactly("2");
+        assertThat(meterRegistry.counter("rabbitmq.publish.timeouts").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("rabbitmq.publish.returned").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("rabbitmq.publish.in-flight").gauge().value()).isEqualTo(1.0);
+    }
+
+    private static List<ConfirmingPublisher.Outgoing> batch(String... ids) {
+        List<ConfirmingPublisher.Outgoing> batch = new ArrayList<>();
+        for (String id : ids) {
+            batch.add(new ConfirmingPublisher.Outgoing(id, "", "product.created.queue",
+                    new Message(id.getBytes(), new MessageProperties())));
+        }
+        return batch;
+    }
+
+    // Confirms synchronously, as if the broker answered before the first await
+    static class FakeBroker extends RabbitTemplate {
+        final List<String> sent = new ArrayList<>();
+        final Map<String, Integer> nacksLeft = new HashMap<>();
+        final List<String> silent = new ArrayList<>();
+        final List<String> unroutable = new ArrayList<>();
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            String id = correlationData.getId();
+            sent.add(id);
+            if (silent.contains(id)) {
+                return;
+            }
+            if (unroutable.contains(id)) {
+                correlationData.setReturned(new ReturnedMessage(message, 312, "NO_ROUTE", exchange, routingKey));
+            }
+            int nacks = nacksLeft.getOrDefault(id, 0);
+            nacksLeft.put(id, nacks - 1);
+            correlationData.getFuture().complete(new CorrelationData.Confirm(nacks <= 0, nacks > 0 ? "nack" : null));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.InventoryProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryLedgerTest {
+
+    private static final long HOT = 42L;
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        FiniteStock stock = new FiniteStock(1_000);
+        InventoryLedger ledger = ledger(stock, 8, 25);
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService buyers = Executors.newFixedThreadPool(64);
+        for (int b = 0; b < 64; b++) {
+            buyers.submit(() -> {
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    if (ledger.reserve(HOT, 1)) {
+                        sold.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        buyers.shutdown();
+        assertThat(buyers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold.get()).isEqualTo(1_000);
+        assertThat(ledger.reserve(HOT, 1)).isFalse();
+        ledger.flush();
+        assertThat(stock.quantity).isZero();
+    }
+
+    @Test
+    void unusedLeaseIsReturnedOnFlush() {
+        FiniteStock stock = new FiniteStock(100);
+        InventoryLedger ledger = ledger(stock, 4, 50);
+
+        assertThat(ledger.reserve(HOT, 3)).isTrue();
+        assertThat(stock.quantity).isEqualTo(50);
+        ledger.release(HOT, 1);
+        ledger.flush();
+
+        assertThat(stock.quantity).isEqualTo(98);
+        assertThat(stock.leases).isEqualTo(1);
+    }
+
+    @Test
+    void requestLargerThanAnyStripeIsServedFromThePool() {
+        FiniteStock stock = new FiniteStock(40);
+        InventoryLedger ledger = ledger(stock, 8, 40);
+        assertThat(ledger.reserve(HOT, 1)).isTrue();
+
+        // 39 units are spread over 8 stripes; none holds 30 on its own
+        assertThat(ledger.reserve(HOT, 30)).isTrue();
+        assertThat(ledger.reserve(HOT, 10)).isFalse();
+        assertThat(ledger.reserve(HOT, 9)).isTrue();
+    }
+
+    @Test
+    void onlyConfiguredProductsAreHot() {
+        InventoryLedger ledger = ledger(new FiniteStock(0), 4, 10);
+
+        assertThat(ledger.isHot(HOT)).isTrue();
+        assertThat(ledger.isHot(7L)).isFalse();
+    }
+
+    private static InventoryLedger ledger(InventoryLeaseStore store, int stripes, int leaseSize) {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setHotProducts(Set.of(HOT));
+        properties.setStripes(stripes);
+        properties.setLeaseSize(leaseSize);
+        return new InventoryLedger(store, properties);
+    }
+
+    static class FiniteStock implements InventoryLeaseStore {
+        int quantity;
+        int leases;
+
+        FiniteStock(int quantity) {
+            this.quantity = quantity;
+        }
+
+        @Override
+        public synchronized int lease(long productId, int max) {
+            leases++;
+            int granted = Math.min(quantity, max);
+            quantity -= granted;
+            return granted;
+        }
+
+        @Override
+        public synchronized void restock(Map<Long, Integer> units) {
+            quantity += units.getOrDefault(HOT, 0);
+        }
+    }
+}
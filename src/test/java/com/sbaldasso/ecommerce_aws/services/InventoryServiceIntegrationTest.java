@@ -0,0 +1,148 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.InventoryProperties;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ReservationItem;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.InsufficientStockException;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not run inside a test transaction: the service commits (or rolls back) on its own
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceIntegrationTest {
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Product shoe;
+    private Product hat;
+
+    @BeforeEach
+    void setUp() {
+        repo.deleteAll();
+        shoe = repo.save(product("SHOE-001", "Running Shoe", null, "10.00", 10));
+        hat = repo.save(product("HAT-001", "Summer Hat", null, "10.00", 2));
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        InventoryService service = service(Set.of());
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService buyers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 25; i++) {
+            buyers.submit(() -> {
+                start.await();
+                try {
+                    service.reserve(shoe.getId(), 1);
+                    reserved.incrementAndGet();
+                } catch (InsufficientStockException ignored) {
+                    // sold out
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        buyers.shutdown();
+        assertThat(buyers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(reserved.get()).isEqualTo(10);
+        assertThat(quantity(shoe)).isZero();
+    }
+
+    @Test
+    void reserveAndReleaseReturnTheRemainingStock() {
+        InventoryService service = service(Set.of());
+
+        assertThat(service.reserve(shoe.getId(), 4).getRemaining()).isEqualTo(6);
+        assertThat(service.release(shoe.getId(), 1).getRemaining()).isEqualTo(7);
+        assertThatThrownBy(() -> service.reserve(-1L, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void batchIsAllOrNothing() {
+        InventoryService service = service(Set.of());
+
+        assertThatThrownBy(() -> service.reserveAll(List.of(
+                new ReservationItem(shoe.getId(), 3),
+                new ReservationItem(hat.getId(), 2),
+                new ReservationItem(hat.getId(), 1))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(quantity(shoe)).isEqualTo(10);
+        assertThat(quantity(hat)).isEqualTo(2);
+    }
+
+    @Test
+    void hotProductLeasesFromTheTableAndReturnsTheRest() {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setHotProducts(Set.of(shoe.getId()));
+        properties.setLeaseSize(4);
+        List<ProductChangedEvent> events = new ArrayList<>();
+        InventoryLedger ledger = new InventoryLedger(new JdbcInventoryLeaseStore(jdbcTemplate,
+                event -> events.add((ProductChangedEvent) event), transactionManager), properties);
+        InventoryService service = new InventoryService(repo, ledger, event -> { }, transactionManager);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.reserve(shoe.getId(), 1).getRemaining()).isNull();
+        }
+        // Two leases of 4 so far
+        assertThat(quantity(shoe)).isEqualTo(2);
+
+        ledger.flush();
+
+        assertThat(quantity(shoe)).isEqualTo(5);
+        // Every lease and the restock moved quantity and version, so caches must hear about each
+        assertThat(events).hasSize(3).allSatisfy(event -> {
+            assertThat(event.getType()).isEqualTo(ProductChangedEvent.Type.UPDATED);
+            assertThat(event.getIds()).containsExactly(shoe.getId());
+        });
+    }
+
+    private InventoryService service(Set<Long> hotProducts) {
+        InventoryProperties properties = new InventoryProperties();
+        properties.setHotProducts(hotProducts);
+        InventoryLedger ledger = new InventoryLedger(new JdbcInventoryLeaseStore(jdbcTemplate, event -> { },
+                transactionManager), properties);
+        return new InventoryService(repo, ledger, event -> { }, transactionManager);
+    }
+
+    private int quantity(Product p) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, p.getId());
+    }
+}
@@ -0,0 +1,159 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.config.OutboxProperties;
+import com.sbaldasso.ecommerce_aws.entities.OutboxEvent;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The relay against real outbox rows; the broker is ConfirmingPublisherTest's fake. Not
+// transactional, so each relay step commits as it would in production.
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayIntegrationTest {
+
+    @Autowired
+    private OutboxEventRepository repo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final OutboxProperties properties = new OutboxProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransactionCheckingBroker broker;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM outbox_dead_letters");
+        repo.deleteAllInBatch();
+        properties.setConfirmTimeout(Duration.ofMillis(50));
+        properties.setRetryDelay(Duration.ZERO);
+        properties.setMaxAttempts(2);
+        broker = new TransactionCheckingBroker();
+        relay = new OutboxRelay(repo, new ConfirmingPublisher(broker, meterRegistry), transactionManager,
+                new ObjectMapper(), properties, meterRegistry);
+    }
+
+    @Test
+    void confirmedRowsArePublishedInOrderAndDeleted() {
+        List<Long> ids = enqueue(3);
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        assertThat(broker.sent).containsExactlyElementsOf(ids.stream().map(String::valueOf).toList());
+        assertThat(broker.sentInTransaction).isFalse();
+        assertThat(repo.count()).isZero();
+        assertThat(meterRegistry.counter("outbox.published").count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void returnedRowsAreRetriedAndThenDeadLettered() {
+        Long id = enqueue(1).get(0);
+        broker.unroutable.add(String.valueOf(id));
+
+        relay.relayBatch();
+
+        assertThat(repo.findById(id)).get().extracting(OutboxEvent::getAttempts).isEqualTo(1);
+
+        relay.relayBatch();
+
+        assertThat(repo.findById(id)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT attempts FROM outbox_dead_letters WHERE id = ?", Integer.class, id)).isEqualTo(2);
+        assertThat(meterRegistry.counter("outbox.dead.lettered").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void missingConfirmsDoNotCountAsAttempts() {
+        Long id = enqueue(1).get(0);
+        broker.silent.add(String.valueOf(id));
+
+        relay.relayBatch();
+        relay.relayBatch();
+        relay.relayBatch();
+
+        assertThat(broker.sent).hasSize(3);
+        assertThat(repo.findById(id)).get().extracting(OutboxEvent::getAttempts).isEqualTo(0);
+        assertThat(meterRegistry.counter("outbox.dead.lettered").count()).isZero();
+    }
+
+    @Test
+    void claimedRowsAreInvisibleToOtherRelays() {
+        enqueue(2);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<OutboxEvent> first = tx.execute(status -> repo.claimNextBatch(10, Duration.ofMinutes(1).toMillis()));
+        List<OutboxEvent> second = tx.execute(status -> repo.claimNextBatch(10, Duration.ofMinutes(1).toMillis()));
+
+        assertThat(first).hasSize(2);
+        assertThat(second).isEmpty();
+        assertThat(relay.relayBatch()).isZero();
+        assertThat(broker.sent).isEmpty();
+    }
+
+    @Test
+    void rowsOfACrashedRelayAreClaimedAgainOnceTheClaimExpires() {
+        enqueue(1);
+        new TransactionTemplate(transactionManager).execute(status -> repo.claimNextBatch(10, 0));
+
+        assertThat(relay.relayBatch()).isEqualTo(1);
+        assertThat(repo.count()).isZero();
+    }
+
+    private List<Long> enqueue(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OutboxEvent event = new OutboxEvent();
+            event.setAggregateType("Product");
+            event.setAggregateId(String.valueOf(i));
+            event.setExchange("");
+            event.setRoutingKey("product.created.queue");
+            event.setContentType("application/json");
+            event.setPayload(("{\"id\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+            event.setCreatedAt(Instant.now());
+            ids.add(repo.save(event).getId());
+        }
+        return ids;
+    }
+
+    // Publishing must not hold the claim transaction (and its connection) open
+    static class TransactionCheckingBroker extends ConfirmingPublisherTest.FakeBroker {
+        volatile boolean sentInTransaction;
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            sentInTransaction |= TransactionSynchronizationManager.isActualTransactionActive();
+            super.send(exchange, routingKey, message, correlationData);
+        }
+    }
+}
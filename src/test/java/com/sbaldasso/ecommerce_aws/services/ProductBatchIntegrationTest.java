@@ -0,0 +1,171 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.config.KeyFilterProperties;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchItemResult;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchItemResult.Status;
+import com.sbaldasso.ecommerce_aws.dto.ProductBatchResponse;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.runningShoe;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductBatchIntegrationTest {
+
+    // Spans two full JDBC batches (hibernate.jdbc.batch_size = 50) and a partial one
+    private static final int CREATES = 120;
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private OutboxEventRepository outboxRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private ProductKeyFilter keys;
+    private ProductBatchService service;
+    private Product existing;
+
+    @BeforeEach
+    void setUp() {
+        OutboxService outbox = new OutboxService(outboxRepo, new Jackson2JsonMessageConverter(),
+                new ObjectMapper().findAndRegisterModules());
+        keys = new ProductKeyFilter(jdbcTemplate, transactionManager, new KeyFilterProperties(),
+                new SimpleMeterRegistry());
+        service = new ProductBatchService(repo, entityManager, outbox,
+                event -> events.add((ProductChangedEvent) event), keys, 50);
+        repo.deleteAll();
+        outboxRepo.deleteAll();
+        existing = repo.saveAndFlush(runningShoe());
+        entityManager.clear();
+    }
+
+    @Test
+    void insertsGoOutInJdbcBatches() {
+        List<ProductRequest> items = new ArrayList<>();
+        for (int i = 0; i < CREATES; i++) {
+            items.add(request("SKU-" + i, "Product " + i));
+        }
+        Statistics statistics = statistics();
+
+        ProductBatchResponse response = service.upsert(items);
+        entityManager.flush();
+
+        assertThat(response.getCreated()).isEqualTo(CREATES);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2L * CREATES);
+        // Row by row this would be 240 INSERTs plus a nextval each. Batched it is one INSERT per
+        // table and flush, one nextval per 50 ids and the SKU lookup.
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(20);
+        assertThat(repo.count()).isEqualTo(CREATES + 1);
+        assertThat(outboxRepo.count()).isEqualTo(CREATES);
+    }
+
+    @Test
+    void idsComeFromThePooledSequenceBeforeTheInsert() {
+        List<ProductRequest> items = List.of(request("HAT-001", "Summer Hat"), request("HAT-002", "Winter Hat"));
+
+        ProductBatchResponse response = service.upsert(items);
+
+        assertThat(response.getResults()).extracting(ProductBatchItemResult::getId).doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getType()).isEqualTo(ProductChangedEvent.Type.CREATED);
+            assertThat(event.getIds()).containsExactlyElementsOf(
+                    response.getResults().stream().map(ProductBatchItemResult::getId).toList());
+        });
+    }
+
+    @Test
+    void knownSkusAreUpdatedInPlace() {
+        ProductBatchResponse response = service.upsert(List.of(
+                request("SHOE-001", "Trail Shoe"),
+                request("HAT-001", "Summer Hat")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(Status.UPDATED);
+        assertThat(response.getResults().get(0).getId()).isEqualTo(existing.getId());
+        assertThat(repo.findById(existing.getId())).get().extracting(Product::getName).isEqualTo("Trail Shoe");
+        assertThat(events).extracting(ProductChangedEvent::getType)
+                .containsExactly(ProductChangedEvent.Type.UPDATED, ProductChangedEvent.Type.CREATED);
+    }
+
+    @Test
+    void repeatedSkusInOneBatchFailAfterTheFirst() {
+        ProductBatchResponse response = service.upsert(List.of(
+                request("HAT-001", "Summer Hat"),
+                request("HAT-001", "Summer Hat (again)"),
+                request("SHOE-001", "Trail Shoe"),
+                request("SHOE-001", "Road Shoe")));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(response.getResults()).extracting(ProductBatchItemResult::getStatus)
+                .containsExactly(Status.CREATED, Status.FAILED, Status.UPDATED, Status.FAILED);
+        assertThat(response.getResults().get(1).getMessage()).isEqualTo("Duplicate SKU in batch");
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(repo.findBySkuIn(List.of("HAT-001", "SHOE-001"))).extracting(Product::getName)
+                .containsExactlyInAnyOrder("Summer Hat", "Trail Shoe");
+    }
+
+    @Test
+    void createdSkusAreKnownToTheKeyFilter() {
+        keys.rebuild();
+
+        service.upsert(List.of(request("HAT-001", "Summer Hat")));
+
+        assertThat(keys.mightContainSku("HAT-001")).isTrue();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static ProductRequest request(String sku, String name) {
+        ProductRequest req = new ProductRequest();
+        req.setSku(sku);
+        req.setName(name);
+        req.setPrice(new BigDecimal("19.90"));
+        req.setQuantity(3);
+        return req;
+    }
+}
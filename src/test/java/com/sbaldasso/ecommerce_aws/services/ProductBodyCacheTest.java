@@ -0,0 +1,135 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.KeyFilterProperties;
+import com.sbaldasso.ecommerce_aws.config.ProductBodyCacheProperties;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductBodyCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    // Never rebuilt: lets every id through
+    private final ProductKeyFilter keys = new ProductKeyFilter(new JdbcTemplate(), null, new KeyFilterProperties(),
+            new SimpleMeterRegistry());
+
+    private FakeProductService products;
+    private ConcurrentMapCacheManager cacheManager;
+    private ProductBodyCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        products = new FakeProductService();
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE, CacheConfig.PRODUCT_BODIES_CACHE);
+        properties = new ProductBodyCacheProperties();
+    }
+
+    @Test
+    void bodiesAreSerializedOnceAndCarryTheirHeaders() throws IOException {
+        products.put(product(1L, 3L, "short"));
+        ProductBodyCache cache = new ProductBodyCache(products, keys, cacheManager, objectMapper, properties);
+
+        ProductBodyCache.ProductBody first = cache.get(1L);
+        ProductBodyCache.ProductBody second = cache.get(1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(products.loads).isEqualTo(1);
+        assertThat(first.etag()).isEqualTo("\"3\"");
+        assertThat(first.lastModified()).isEqualTo(Instant.parse("2024-01-15T10:15:30Z").toEpochMilli());
+        assertThat(objectMapper.readValue(first.json(), ProductResponse.class)).isEqualTo(products.get(1L));
+        // Below gzip-min-size
+        assertThat(first.gzip()).isNull();
+        assertThat(first.gzipEtag()).isNull();
+    }
+
+    @Test
+    void largeBodiesAreAlsoKeptGzipped() throws IOException {
+        properties.setGzipMinSize(256);
+        products.put(product(2L, 1L, "a long description ".repeat(40)));
+        ProductBodyCache cache = new ProductBodyCache(products, keys, cacheManager, objectMapper, properties);
+
+        ProductBodyCache.ProductBody body = cache.get(2L);
+
+        assertThat(body.gzip()).isNotNull().hasSizeLessThan(body.json().length);
+        assertThat(body.gzipEtag()).isEqualTo("\"1-gz\"").isNotEqualTo(body.etag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(body.json());
+        }
+    }
+
+    @Test
+    void writesEvictTheSerializedBody() {
+        products.put(product(1L, 1L, "before"));
+        ProductBodyCache cache = new ProductBodyCache(products, keys, cacheManager, objectMapper, properties);
+        cache.get(1L);
+
+        products.put(product(1L, 2L, "after"));
+        new ProductCacheInvalidator(cacheManager)
+                .onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, List.of(1L)));
+
+        assertThat(cache.get(1L).etag()).isEqualTo("\"2\"");
+    }
+
+    @Test
+    void missingProductsStayNotFound() {
+        ProductBodyCache cache = new ProductBodyCache(products, keys, cacheManager, objectMapper, properties);
+
+        assertThatThrownBy(() -> cache.get(99L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product not found");
+    }
+
+    private static ProductResponse product(Long id, Long version, String description) {
+        Instant now = Instant.parse("2024-01-15T10:15:30Z");
+        return new ProductResponse(id, "SKU-" + id, "Product " + id, description,
+                new BigDecimal("19.90"), 5, now.minusSeconds(60), now, version);
+    }
+
+    private static final class FakeProductService extends ProductService {
+        private final Map<Long, ProductResponse> rows = new HashMap<>();
+        private int loads;
+
+        private FakeProductService() {
+            super(null, null, null, null);
+        }
+
+        private void put(ProductResponse product) {
+            rows.put(product.getId(), product);
+        }
+
+        private ProductResponse get(Long id) {
+            return rows.get(id);
+        }
+
+        @Override
+        public ProductResponse findById(Long id) {
+            loads++;
+            ProductResponse product = rows.get(id);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found");
+            }
+            return product;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.CacheInvalidationProperties;
+import com.sbaldasso.ecommerce_aws.config.KeyFilterProperties;
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductInvalidationMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerStartedEvent;
+import org.springframework.amqp.rabbit.listener.AsyncConsumerStoppedEvent;
+import org.springframework.amqp.rabbit.listener.ListenerContainerConsumerFailedEvent;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheBroadcasterTest {
+
+    private FakeExchange exchange;
+    private Node a;
+    private Node b;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new FakeExchange();
+        a = new Node(exchange);
+        b = new Node(exchange);
+        for (long id = 1; id <= 3; id++) {
+            a.cache.put(id, "a-" + id);
+            b.cache.put(id, "b-" + id);
+        }
+    }
+
+    @Test
+    void updatesEvictTheMatchingEntriesOnOtherNodes() {
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.DELETED, 2L));
+        deliverAll();
+
+        assertThat(b.cache.get(1L)).isNull();
+        assertThat(b.cache.get(2L)).isNull();
+        assertThat(b.cache.get(3L)).isNotNull();
+        // Own messages come back through the fanout and are ignored
+        assertThat(a.cache.get(3L)).isNotNull();
+    }
+
+    @Test
+    void createdProductsOnlyRetireSearchPages() {
+        long generation = b.invalidator.generation();
+
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.CREATED, 4L));
+        deliverAll();
+
+        assertThat(b.invalidator.generation()).isGreaterThan(generation);
+        assertThat(b.cache.get(1L)).isNotNull();
+    }
+
+    @Test
+    void importsClearEverything() {
+        a.broadcaster.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.IMPORTED, List.of()));
+        deliverAll();
+
+        assertThat(b.cache.get(3L)).isNull();
+    }
+
+    @Test
+    void aMissedMessageFlushesTheWholeCache() {
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        deliverAll();
+
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 2L));
+        exchange.down = true;
+        a.broadcaster.sendQueued();
+        exchange.down = false;
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        deliverAll();
+
+        assertThat(b.cache.get(2L)).isNull();
+        assertThat(b.cache.get(3L)).isNull();
+        assertThat(b.meterRegistry.counter("cache.invalidation.gaps").count()).isEqualTo(1.0);
+        assertThat(a.meterRegistry.counter("cache.invalidation.send.failures").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void aRestartedConsumerStartsFromAnEmptyCache() {
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        deliverAll();
+
+        // Messages sent while b was disconnected never reach its new queue
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 2L));
+        a.broadcaster.sendQueued();
+        exchange.sent.clear();
+        b.broadcaster.onConsumerStarted(consumerStarted(RabbitMQConfig.INVALIDATION_LISTENER_ID));
+
+        assertThat(b.cache.get(3L)).isNull();
+
+        // The next message is the new baseline, not a gap
+        b.cache.put(3L, "b-3");
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        deliverAll();
+
+        assertThat(b.cache.get(3L)).isNotNull();
+        assertThat(b.meterRegistry.counter("cache.invalidation.gaps").count()).isZero();
+    }
+
+    @Test
+    void committingWritesOnlyQueueTheMessage() {
+        exchange.down = true;
+
+        a.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+
+        assertThat(a.meterRegistry.counter("cache.invalidation.send.failures").count()).isZero();
+        exchange.down = false;
+        a.broadcaster.sendQueued();
+        assertThat(exchange.sent).extracting(ProductInvalidationMessage::getSequence).containsExactly(1L);
+    }
+
+    @Test
+    void aFullQueueDropsMessagesAndLeavesAGap() {
+        Node small = new Node(exchange, 1);
+
+        small.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 1L));
+        small.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 2L));
+        small.broadcaster.sendQueued();
+        small.broadcaster.onProductChanged(changed(ProductChangedEvent.Type.UPDATED, 3L));
+        small.broadcaster.sendQueued();
+
+        assertThat(small.meterRegistry.counter("cache.invalidation.dropped").count()).isEqualTo(1.0);
+        assertThat(exchange.sent).extracting(ProductInvalidationMessage::getSequence).containsExactly(1L, 3L);
+        for (ProductInvalidationMessage message : exchange.sent) {
+            b.broadcaster.onInvalidation(message);
+        }
+        assertThat(b.meterRegistry.counter("cache.invalidation.gaps").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void otherContainersStartingLeaveTheCacheAlone() {
+        b.broadcaster.onConsumerStarted(consumerStarted("somethingElse"));
+
+        assertThat(b.cache.get(1L)).isNotNull();
+        assertThat(b.keys.isSubscribed()).isFalse();
+    }
+
+    @Test
+    void theKeyFilterOnlyCountsAsSubscribedWhileTheConsumerIsUp() {
+        assertThat(b.keys.isSubscribed()).isFalse();
+
+        b.broadcaster.onConsumerStarted(consumerStarted(RabbitMQConfig.INVALIDATION_LISTENER_ID));
+        assertThat(b.keys.isSubscribed()).isTrue();
+
+        b.broadcaster.onConsumerFailed(new ListenerContainerConsumerFailedEvent(
+                container(RabbitMQConfig.INVALIDATION_LISTENER_ID), "connection lost", null, false));
+        assertThat(b.keys.isSubscribed()).isFalse();
+
+        b.broadcaster.onConsumerStarted(consumerStarted(RabbitMQConfig.INVALIDATION_LISTENER_ID));
+        b.broadcaster.onConsumerStopped(new AsyncConsumerStoppedEvent(
+                container(RabbitMQConfig.INVALIDATION_LISTENER_ID), new Object()));
+        assertThat(b.keys.isSubscribed()).isFalse();
+    }
+
+    private static AsyncConsumerStartedEvent consumerStarted(String listenerId) {
+        return new AsyncConsumerStartedEvent(container(listenerId), new Object());
+    }
+
+    private static SimpleMessageListenerContainer container(String listenerId) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+        container.setListenerId(listenerId);
+        return container;
+    }
+
+    private void deliverAll() {
+        a.broadcaster.sendQueued();
+        b.broadcaster.sendQueued();
+        for (ProductInvalidationMessage message : exchange.sent) {
+            a.broadcaster.onInvalidation(message);
+            b.broadcaster.onInvalidation(message);
+        }
+        exchange.sent.clear();
+    }
+
+    private static ProductChangedEvent changed(ProductChangedEvent.Type type, Long id) {
+        return new ProductChangedEvent(type, List.of(id));
+    }
+
+    private static final class Node {
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final Cache cache;
+        private final ProductCacheInvalidator invalidator;
+        private final ProductKeyFilter keys;
+        private final ProductCacheBroadcaster broadcaster;
+
+        private Node(FakeExchange exchange) {
+            this(exchange, new CacheInvalidationProperties().getQueueCapacity());
+        }
+
+        private Node(FakeExchange exchange, int queueCapacity) {
+            ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE);
+            this.cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+            this.invalidator = new ProductCacheInvalidator(cacheManager);
+            // Never rebuilt here: it trusts nothing and needs no database
+            this.keys = new ProductKeyFilter(new JdbcTemplate(), null, new KeyFilterProperties(),
+                    meterRegistry);
+            CacheInvalidationProperties properties = new CacheInvalidationProperties();
+            properties.setQueueCapacity(queueCapacity);
+            this.broadcaster = new ProductCacheBroadcaster(invalidator, keys, exchange, properties, meterRegistry);
+        }
+    }
+
+    // Records what would have been published to the fanout exchange
+    private static final class FakeExchange extends RabbitTemplate {
+        private final List<ProductInvalidationMessage> sent = new ArrayList<>();
+        private boolean down;
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object message) {
+            if (down) {
+                throw new AmqpConnectException(new ConnectException("broker unreachable"));
+            }
+            sent.add((ProductInvalidationMessage) message);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.ProductEventsProperties;
+import com.sbaldasso.ecommerce_aws.config.RabbitMQConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductCreatedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.messaging.ProductEventBinaryConverter;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = {
+        RabbitMQConfig.class,
+        ProductEventsProperties.class,
+        ProductCreatedListener.class,
+        ProductCacheInvalidator.class,
+        ProductCreatedListenerIntegrationTest.TestBeans.class
+}, properties = {
+        "product-events.batch-size=10",
+        "product-events.batch-timeout=200ms",
+        "spring.rabbitmq.listener.simple.prefetch=50"
+})
+@ImportAutoConfiguration({RabbitAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Testcontainers
+class ProductCreatedListenerIntegrationTest {
+
+    @Container
+    static RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3.13-management-alpine");
+
+    @DynamicPropertySource
+    static void rabbitmq(DynamicPropertyRegistry registry) {
+        registry.add("spring.rabbitmq.host", rabbit::getHost);
+        registry.add("spring.rabbitmq.port", rabbit::getAmqpPort);
+        registry.add("spring.rabbitmq.username", rabbit::getAdminUsername);
+        registry.add("spring.rabbitmq.password", rabbit::getAdminPassword);
+    }
+
+    @TestConfiguration
+    static class TestBeans {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private ProductRepository repo;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductCreatedListener listener;
+
+    @Autowired
+    private ProductCacheInvalidator invalidator;
+
+    @Test
+    void batchesWarmTheCacheAndPoisonMessagesAreDeadLettered() {
+        when(repo.findAllById(any())).thenAnswer(invocation -> {
+            List<Product> found = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                found.add(product(id));
+            }
+            return found;
+        });
+
+        for (long id = 1; id <= 25; id++) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_CREATED_QUEUE, new ProductCreatedEvent(id, "SKU-" + id));
+        }
+        // Redelivered duplicate: warming is idempotent
+        rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_CREATED_QUEUE, new ProductCreatedEvent(1L, "SKU-1"));
+        // A producer already switched to the binary encoding
+        rabbitTemplate.send(RabbitMQConfig.PRODUCT_CREATED_QUEUE, new ProductEventBinaryConverter()
+                .toMessage(new ProductCreatedEvent(26L, "SKU-26"), new MessageProperties()));
+        rabbitTemplate.send(RabbitMQConfig.PRODUCT_CREATED_QUEUE, MessageBuilder
+                .withBody("not json".getBytes(StandardCharsets.UTF_8))
+                .build());
+
+        await().atMost(Duration.ofSeconds(20)).untilAsserted(() -> {
+            for (long id = 1; id <= 26; id++) {
+                assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(id, ProductResponse.class))
+                        .isNotNull();
+            }
+        });
+
+        Message deadLettered = rabbitTemplate.receive(RabbitMQConfig.PRODUCT_CREATED_DLQ, 10_000);
+        assertThat(deadLettered).isNotNull();
+        assertThat(new String(deadLettered.getBody(), StandardCharsets.UTF_8)).isEqualTo("not json");
+        assertThat(deadLettered.getMessageProperties().<String>getHeader("x-exception-message")).isNotBlank();
+
+        // 28 messages in batches of at most 10
+        assertThat(meterRegistry.get("product.events.batch.size").summary().count()).isGreaterThanOrEqualTo(3);
+        assertThat(meterRegistry.get("product.events.dead.lettered").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rowsOvertakenByAnUpdateAreNotCached() {
+        // The update commits while the batch reads: its eviction finds nothing to evict yet
+        when(repo.findAllById(any())).thenAnswer(invocation -> {
+            invalidator.evict(List.of(100L));
+            return List.of(product(100L));
+        });
+
+        listener.onProductsCreated(List.of(rabbitTemplate.getMessageConverter()
+                .toMessage(new ProductCreatedEvent(100L, "SKU-100"), new MessageProperties())));
+
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(100L)).isNull();
+    }
+
+    private static Product product(Long id) {
+        Product p = new Product();
+        p.setId(id);
+        p.setSku("SKU-" + id);
+        p.setName("Product " + id);
+        p.setPrice(new BigDecimal("10.00"));
+        p.setQuantity(1);
+        return p;
+    }
+}
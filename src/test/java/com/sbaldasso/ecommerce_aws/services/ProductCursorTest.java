@@ -0,0 +1,92 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorTest {
+
+    @Test
+    void roundTripsThroughTheToken() {
+        Product last = new Product();
+        last.setId(42L);
+        last.setName("Tênis de corrida");
+
+        String token = ProductCursor.after(ProductCursor.Sort.NAME, last).encode();
+
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(ProductCursor.decode(token, ProductCursor.Sort.NAME))
+                .isEqualTo(new ProductCursor(ProductCursor.Sort.NAME, 42L, "Tênis de corrida"));
+    }
+
+    @Test
+    void idCursorsDoNotCarryTheName() {
+        Product last = new Product();
+        last.setId(7L);
+        last.setName("Running Shoe");
+
+        ProductCursor cursor = ProductCursor.decode(ProductCursor.after(ProductCursor.Sort.ID, last).encode(),
+                ProductCursor.Sort.ID);
+
+        assertThat(cursor.lastName()).isEmpty();
+        assertThat(cursor.lastId()).isEqualTo(7L);
+    }
+
+    @Test
+    void aCursorOnlyWorksForTheSortItWasIssuedFor() {
+        String token = new ProductCursor(ProductCursor.Sort.ID, 7L, "").encode();
+
+        assertThatThrownBy(() -> ProductCursor.decode(token, ProductCursor.Sort.NAME))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Cursor was issued for sort id");
+    }
+
+    @Test
+    void garbageIsRejected() {
+        assertMalformed("not a cursor!");
+        assertMalformed("");
+        // Valid base64url, but far too short
+        assertMalformed("AQ");
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        byte[] bytes = Base64.getUrlDecoder().decode(new ProductCursor(ProductCursor.Sort.NAME, 7L, "Hat").encode());
+
+        assertMalformed(encode(Arrays.copyOf(bytes, bytes.length - 1)));
+        assertMalformed(encode(Arrays.copyOf(bytes, bytes.length + 1)));
+
+        byte[] unknownSort = bytes.clone();
+        unknownSort[1] = 9;
+        assertMalformed(encode(unknownSort));
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[0] = 2;
+        assertThatThrownBy(() -> ProductCursor.decode(encode(otherVersion), ProductCursor.Sort.NAME))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Unsupported cursor version");
+    }
+
+    @Test
+    void unknownSortsAreRejected() {
+        assertThat(ProductCursor.Sort.from(null)).isEqualTo(ProductCursor.Sort.ID);
+        assertThat(ProductCursor.Sort.from(" Name ")).isEqualTo(ProductCursor.Sort.NAME);
+        assertThatThrownBy(() -> ProductCursor.Sort.from("price")).isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static void assertMalformed(String token) {
+        assertThatThrownBy(() -> ProductCursor.decode(token, ProductCursor.Sort.NAME))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Malformed cursor");
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductExportIntegrationTest {
+
+    // More than the 1000-row fetch size, so the export spans several cursor fetches
+    private static final int ROWS = 2_500;
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ProductExportService exportService;
+
+    @BeforeEach
+    void seed() {
+        exportService = new ProductExportService(repo, entityManager, objectMapper);
+        repo.deleteAll();
+        List<Product> products = new ArrayList<>(ROWS + 1);
+        for (int i = 0; i < ROWS; i++) {
+            products.add(product("SKU-" + i, "Product " + i, "Plain description", "19.90", 3));
+        }
+        products.add(product("SKU-CSV", "Shoe, \"Trail\" edition", "Line one\nline two", "19.90", 3));
+        repo.saveAll(products);
+        repo.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLineInIdOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.export(ProductExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(ROWS + 1);
+        assertThat(lines).hasSize(ROWS + 1);
+        long previousId = 0;
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            assertThat(node.get("id").asLong()).isGreaterThan(previousId);
+            previousId = node.get("id").asLong();
+        }
+        // Every row was detached once written
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ProductExportService.Format.CSV, out);
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("id,sku,name,description,price,quantity,createdAt,updatedAt\r\n");
+        assertThat(csv).contains(",SKU-CSV,\"Shoe, \"\"Trail\"\" edition\",\"Line one\nline two\",19.90,3,");
+    }
+
+    @Test
+    void csvFieldsWithoutSpecialCharactersAreNotQuoted() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        Csv.writeField(writer, "plain");
+
+        assertThat(writer).hasToString("plain");
+    }
+}
@@ -0,0 +1,121 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductImportResponse;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.runningShoe;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductImportIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private OutboxEventRepository outboxRepo;
+
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private ProductImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        OutboxService outbox = new OutboxService(outboxRepo, new Jackson2JsonMessageConverter(), objectMapper);
+        importService = new ProductImportService(dataSource, jdbcTemplate, objectMapper, outbox,
+                event -> events.add((ProductChangedEvent) event));
+        repo.deleteAll();
+        outboxRepo.deleteAll();
+
+        repo.saveAndFlush(runningShoe());
+    }
+
+    @Test
+    void csvUpsertsBySkuAndSkipsInvalidRows() {
+        String csv = """
+                sku,name,description,price,quantity
+                SHOE-001,Running Shoe v2,"Lighter, faster",109.90,7
+                HAT-001,Summer Hat,,19.90,3
+                HAT-001,Summer Hat (last wins),,21.00,4
+                BAD-001,Bad Price,,abc,1
+                ,Missing Sku,,1.00,1
+                """;
+
+        ProductImportResponse response = importService.importProducts(ProductImportService.Format.CSV, body(csv));
+
+        assertThat(response.getReceived()).isEqualTo(5);
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getSkipped()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM products WHERE sku = 'HAT-001'", String.class))
+                .isEqualTo("Summer Hat (last wins)");
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM products WHERE sku = 'SHOE-001'", String.class))
+                .isEqualTo("Lighter, faster");
+        // One summary message for the whole import
+        assertThat(outboxRepo.count()).isEqualTo(1);
+        assertThat(events).extracting(ProductChangedEvent::getType).containsExactly(ProductChangedEvent.Type.IMPORTED);
+    }
+
+    @Test
+    void ndjsonIsImported() {
+        String ndjson = """
+                {"sku":"HAT-001","name":"Summer Hat","price":19.9,"quantity":3,"ignored":{"nested":true}}
+                {"sku":"SHOE-001","name":"Running Shoe","description":"Now with a \\"quoted\\" description","price":"99.90","quantity":5}
+                """;
+
+        ProductImportResponse response = importService.importProducts(ProductImportService.Format.NDJSON, body(ndjson));
+
+        assertThat(response.getReceived()).isEqualTo(2);
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT price FROM products WHERE sku = 'HAT-001'", BigDecimal.class))
+                .isEqualByComparingTo("19.90");
+    }
+
+    @Test
+    void unchangedRowsAreNotRewritten() {
+        String csv = """
+                sku,name,description,price,quantity
+                SHOE-001,Running Shoe,,99.90,5
+                """;
+
+        ProductImportResponse response = importService.importProducts(ProductImportService.Format.CSV, body(csv));
+
+        assertThat(response.getCreated()).isZero();
+        assertThat(response.getUpdated()).isZero();
+        assertThat(response.getSkipped()).isEqualTo(1);
+        assertThat(outboxRepo.count()).isZero();
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
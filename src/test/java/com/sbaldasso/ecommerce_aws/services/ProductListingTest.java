@@ -0,0 +1,52 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductListingTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+
+    @Test
+    void etagIsStableForTheSameRows() {
+        assertThat(listing(100, product(1, 0, T0), product(2, 0, T0)).etag())
+                .isEqualTo(listing(100, product(1, 0, T0), product(2, 0, T0)).etag())
+                .startsWith("\"p")
+                .endsWith("\"");
+    }
+
+    @Test
+    void etagChangesWithVersionsRowsAndTotal() {
+        String etag = listing(100, product(1, 0, T0), product(2, 0, T0)).etag();
+
+        assertThat(listing(100, product(1, 1, T0), product(2, 0, T0)).etag()).isNotEqualTo(etag);
+        assertThat(listing(100, product(1, 0, T0), product(3, 0, T0)).etag()).isNotEqualTo(etag);
+        assertThat(listing(99, product(1, 0, T0), product(2, 0, T0)).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void toResponseKeepsPaging() {
+        ProductListing listing = listing(100, product(1, 0, T0));
+
+        assertThat(listing.toResponse().getTotalElements()).isEqualTo(100);
+        assertThat(listing.toResponse().getContent()).extracting("version").containsExactly(0L);
+    }
+
+    private static ProductListing listing(long total, Product... products) {
+        return new ProductListing(new PageImpl<>(Stream.of(products).map(ProductMapper::toResponse).toList(),
+                PageRequest.of(0, 10), total));
+    }
+
+    private static Product product(long id, long version, Instant updatedAt) {
+        return new Product(id, "SKU-" + id, "Product " + id, null, BigDecimal.ONE, 1, T0, updatedAt, version);
+    }
+}
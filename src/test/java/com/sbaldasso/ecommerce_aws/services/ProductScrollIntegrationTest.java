@@ -0,0 +1,109 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.dto.CursorPage;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.InvalidCursorException;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductScrollIntegrationTest {
+
+    // Duplicate names on purpose: the id tie-breaker must keep them apart across page boundaries
+    private static final List<String> NAMES = List.of(
+            "Trail Shoe", "Boot", "Running Shoe", "Boot", "Sandal", "Boot", "Hat", "Shoe Horn");
+
+    @Autowired
+    private ProductRepository repo;
+
+    private ProductService service;
+    private List<Product> seeded;
+
+    @BeforeEach
+    void seed() {
+        // scroll touches neither the outbox, the events nor the key filter
+        service = new ProductService(repo, null, null, null);
+        repo.deleteAll();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < NAMES.size(); i++) {
+            products.add(product("SKU-" + i, NAMES.get(i), null, "10.00", 1));
+        }
+        seeded = repo.saveAllAndFlush(products);
+    }
+
+    @Test
+    void idOrderVisitsEveryRowOnce() {
+        List<Long> expected = seeded.stream().map(Product::getId).sorted().toList();
+
+        assertThat(walk("id", null, 3)).extracting(ProductResponse::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void nameOrderBreaksTiesById() {
+        List<Long> expected = seeded.stream()
+                .sorted(Comparator.comparing(Product::getName).thenComparing(Product::getId))
+                .map(Product::getId)
+                .toList();
+
+        assertThat(walk("name", null, 2)).extracting(ProductResponse::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void filtersByNameAndCountsOnRequest() {
+        CursorPage<ProductResponse> first = service.scroll("shoe", "id", null, 2, true);
+
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(walk("id", "shoe", 2)).extracting(ProductResponse::getName)
+                .containsExactlyInAnyOrder("Trail Shoe", "Running Shoe", "Shoe Horn");
+    }
+
+    @Test
+    void theLastPageHasNoCursor() {
+        CursorPage<ProductResponse> page = service.scroll(null, "id", null, NAMES.size(), false);
+
+        assertThat(page.getContent()).hasSize(NAMES.size());
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTotalElements()).isNull();
+    }
+
+    @Test
+    void cursorsCannotSwitchSortMidWalk() {
+        String cursor = service.scroll(null, "id", null, 2, false).getNextCursor();
+
+        assertThatThrownBy(() -> service.scroll(null, "name", cursor, 2, false))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private List<ProductResponse> walk(String sort, String q, int size) {
+        List<ProductResponse> rows = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<ProductResponse> page = service.scroll(q, sort, cursor, size, false);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(size);
+            rows.addAll(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return rows;
+    }
+}
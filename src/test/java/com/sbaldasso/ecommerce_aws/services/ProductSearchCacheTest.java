@@ -0,0 +1,169 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.config.SearchCacheProperties;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchCacheTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-15T10:00:00Z");
+
+    private FakeProductService products;
+    private ProductRepository repo;
+    private ConcurrentMapCacheManager cacheManager;
+    private ProductCacheInvalidator invalidator;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductSearchCache cache;
+
+    @BeforeEach
+    void setUp() {
+        products = new FakeProductService();
+        repo = mock(ProductRepository.class);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE);
+        invalidator = new ProductCacheInvalidator(cacheManager);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductSearchCache(products, repo, cacheManager, invalidator, new SearchCacheProperties(),
+                meterRegistry);
+    }
+
+    @Test
+    void repeatedQueriesAreServedWithoutSearching() {
+        when(repo.findAllById(any())).thenReturn(List.of(entity(1L), entity(2L)));
+
+        ProductListing first = cache.search("Blue  Shoe", PageRequest.of(0, 10));
+        ProductListing second = cache.search(" blue shoe ", PageRequest.of(0, 10));
+
+        assertThat(products.searches).containsExactly("blue shoe");
+        assertThat(second.etag()).isEqualTo(first.etag());
+        assertThat(second.toResponse().getTotalElements()).isEqualTo(42);
+        assertThat(second.toResponse().getContent()).extracting("id").containsExactly(1L, 2L);
+        assertThat(hitRatio("terms", "first")).isEqualTo(0.5);
+    }
+
+    @Test
+    void searchResultsDoNotFillTheProductsCache() {
+        // The search may have run on a replica that has not seen the latest update yet
+        cache.search("shoe", PageRequest.of(0, 10));
+
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(1L)).isNull();
+    }
+
+    @Test
+    void hydratedRowsAreCachedUnlessAnEvictionRacedTheLoad() {
+        cache.search("shoe", PageRequest.of(0, 10));
+        when(repo.findAllById(any())).thenAnswer(invocation -> {
+            // An update of product 2 commits while the rows are read
+            invalidator.evict(List.of(2L));
+            return List.of(entity(1L), entity(2L));
+        });
+
+        ProductListing listing = cache.search("shoe", PageRequest.of(0, 10));
+
+        assertThat(listing.toResponse().getContent()).extracting("id").containsExactly(1L, 2L);
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(2L)).isNull();
+    }
+
+    @Test
+    void hydratedRowsAreCached() {
+        cache.search("shoe", PageRequest.of(0, 10));
+        when(repo.findAllById(any())).thenReturn(List.of(entity(1L), entity(2L)));
+
+        cache.search("shoe", PageRequest.of(0, 10));
+
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(2L)).isNotNull();
+    }
+
+    @Test
+    void anyWriteRetiresCachedPages() {
+        cache.search(null, PageRequest.of(0, 10));
+
+        invalidator.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, List.of(3L)));
+        cache.search(null, PageRequest.of(0, 10));
+
+        assertThat(products.searches).hasSize(2);
+        assertThat(hitRatio("browse", "first")).isZero();
+    }
+
+    @Test
+    void evictedRowsAreHydratedFromTheDatabase() {
+        cache.search("shoe", PageRequest.of(0, 10));
+        // 1 still cached, 2 expired
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).put(1L, response(1L));
+        when(repo.findAllById(any())).thenReturn(List.of(entity(2L)));
+
+        ProductListing listing = cache.search("shoe", PageRequest.of(0, 10));
+
+        assertThat(products.searches).hasSize(1);
+        assertThat(listing.toResponse().getContent()).extracting("id").containsExactly(1L, 2L);
+    }
+
+    @Test
+    void aVanishedRowForcesANewSearch() {
+        cache.search("shoe", PageRequest.of(0, 10));
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).put(1L, response(1L));
+        when(repo.findAllById(any())).thenReturn(List.of());
+
+        cache.search("shoe", PageRequest.of(0, 10));
+
+        assertThat(products.searches).hasSize(2);
+    }
+
+    @Test
+    void deepPagesAlwaysGoToTheDatabase() {
+        cache.search("shoe", PageRequest.of(9, 10));
+        cache.search("shoe", PageRequest.of(9, 10));
+
+        assertThat(products.searches).hasSize(2);
+        assertThat(meterRegistry.get("product.search.cache.requests")
+                .tag("query", "term").tag("page", "later").tag("result", "bypass")
+                .counter().count()).isEqualTo(2.0);
+    }
+
+    private double hitRatio(String query, String page) {
+        return meterRegistry.get("product.search.cache.hit.ratio").tag("query", query).tag("page", page)
+                .gauge().value();
+    }
+
+    private static ProductResponse response(long id) {
+        return new ProductResponse(id, "SKU-" + id, "Product " + id, null, BigDecimal.ONE, 1, T0, T0, 0L);
+    }
+
+    private static Product entity(long id) {
+        return new Product(id, "SKU-" + id, "Product " + id, null, BigDecimal.ONE, 1, T0, T0, 0L);
+    }
+
+    // Two matching rows out of 42, whatever the query
+    private static final class FakeProductService extends ProductService {
+        private final List<String> searches = new ArrayList<>();
+
+        private FakeProductService() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public ProductListing search(String name, Pageable pageable) {
+            searches.add(name);
+            return new ProductListing(new PageImpl<>(List.of(response(1), response(2)), pageable, 42));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.sbaldasso.ecommerce_aws.config.CacheConfig;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.PreconditionFailedException;
+import com.sbaldasso.ecommerce_aws.mappers.ProductMapper;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.cache.CacheMetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The real cache and transaction advice around ProductService, with the spring.cache settings from
+// application.yml; the repository is a mock and the transaction manager only records commits
+@SpringBootTest(classes = {
+        CacheConfig.class,
+        ProductService.class,
+        ProductCacheInvalidator.class,
+        ProductServiceCachingTest.TestBeans.class
+})
+@ImportAutoConfiguration({
+        CacheAutoConfiguration.class,
+        MetricsAutoConfiguration.class,
+        CompositeMeterRegistryAutoConfiguration.class,
+        SimpleMetricsExportAutoConfiguration.class,
+        CacheMetricsAutoConfiguration.class
+})
+class ProductServiceCachingTest {
+
+    @TestConfiguration
+    @EnableTransactionManagement
+    static class TestBeans {
+
+        @Bean
+        RecordingTransactionManager transactionManager() {
+            return new RecordingTransactionManager();
+        }
+    }
+
+    @MockBean
+    private ProductRepository repo;
+
+    @MockBean
+    private OutboxService outbox;
+
+    @MockBean
+    private ProductKeyFilter keys;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RecordingTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        cache.clear();
+        transactionManager.onCommit = () -> { };
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        when(repo.findById(1L)).thenAnswer(invocation -> {
+            // Long enough for every caller to arrive while the load is in flight
+            Thread.sleep(200);
+            return Optional.of(product(1L, 1L));
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<ProductResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return service.findById(1L);
+            }));
+        }
+
+        start.countDown();
+        callers.shutdown();
+        assertThat(callers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        verify(repo, times(1)).findById(1L);
+        for (Future<ProductResponse> result : results) {
+            assertThat(result.get().getId()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void cacheFillingLoadsReadFromThePrimary() {
+        List<Boolean> pinned = new ArrayList<>();
+        when(repo.findById(3L)).thenAnswer(invocation -> {
+            pinned.add(ReadYourWrites.isPinned());
+            return Optional.of(product(3L, 1L));
+        });
+
+        service.findById(3L);
+
+        assertThat(pinned).containsExactly(true);
+        assertThat(ReadYourWrites.isPinned()).isFalse();
+    }
+
+    @Test
+    void updatesEvictOnlyOnceCommitted() {
+        cache.put(1L, ProductMapper.toResponse(product(1L, 1L)));
+        when(repo.updateReturning(any(), any(), any(), any(), any())).thenReturn(Optional.of(product(1L, 2L)));
+        List<Boolean> cachedAtCommit = new ArrayList<>();
+        transactionManager.onCommit = () -> cachedAtCommit.add(cache.get(1L) != null);
+
+        service.update(1L, request(), null);
+
+        // Evicting earlier would let a concurrent miss re-cache the old row before the commit
+        assertThat(cachedAtCommit).containsExactly(true);
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void aFailedCommitDoesNotEvict() {
+        cache.put(1L, ProductMapper.toResponse(product(1L, 1L)));
+        when(repo.updateReturning(any(), any(), any(), any(), any())).thenReturn(Optional.of(product(1L, 2L)));
+        transactionManager.onCommit = () -> {
+            throw new TransactionSystemException("commit failed");
+        };
+
+        assertThatThrownBy(() -> service.update(1L, request(), null)).isInstanceOf(TransactionSystemException.class);
+
+        assertThat(cache.get(1L)).isNotNull();
+    }
+
+    @Test
+    void aRejectedUpdateDoesNotEvict() {
+        cache.put(1L, ProductMapper.toResponse(product(1L, 3L)));
+        when(repo.updateReturningIfVersionIn(any(), any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(repo.findVersionById(anyLong())).thenReturn(Optional.of(3L));
+
+        assertThatThrownBy(() -> service.update(1L, request(), Set.of(1L)))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        assertThat(cache.get(1L)).isNotNull();
+    }
+
+    @Test
+    void hitsAndMissesAreMetered() {
+        when(repo.findById(2L)).thenReturn(Optional.of(product(2L, 1L)));
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        service.findById(2L);
+        service.findById(2L);
+        service.findById(2L);
+
+        assertThat(gets("miss") - misses).isEqualTo(1.0);
+        assertThat(gets("hit") - hits).isEqualTo(2.0);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.PRODUCTS_CACHE).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static ProductRequest request() {
+        ProductRequest req = new ProductRequest();
+        req.setSku("SHOE-001");
+        req.setName("Trail Shoe");
+        req.setPrice(new BigDecimal("109.90"));
+        req.setQuantity(7);
+        return req;
+    }
+
+    private static Product product(Long id, Long version) {
+        Product p = new Product();
+        p.setId(id);
+        p.setSku("SHOE-00" + id);
+        p.setName("Running Shoe");
+        p.setPrice(new BigDecimal("99.90"));
+        p.setQuantity(5);
+        p.setVersion(version);
+        return p;
+    }
+
+    // Transactions that hold nothing: synchronizations (and so @TransactionalEventListener) run as usual
+    static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+        private volatile Runnable onCommit = () -> { };
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            onCommit.run();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
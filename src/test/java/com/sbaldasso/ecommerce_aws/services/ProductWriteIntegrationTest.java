@@ -0,0 +1,250 @@
+package com.sbaldasso.ecommerce_aws.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sbaldasso.ecommerce_aws.config.JpaConfig;
+import com.sbaldasso.ecommerce_aws.config.KeyFilterProperties;
+import com.sbaldasso.ecommerce_aws.config.ProductBodyCacheProperties;
+import com.sbaldasso.ecommerce_aws.datasource.ReadYourWrites;
+import com.sbaldasso.ecommerce_aws.dto.ProductChangedEvent;
+import com.sbaldasso.ecommerce_aws.dto.ProductRequest;
+import com.sbaldasso.ecommerce_aws.dto.ProductResponse;
+import com.sbaldasso.ecommerce_aws.entities.Product;
+import com.sbaldasso.ecommerce_aws.exception.PreconditionFailedException;
+import com.sbaldasso.ecommerce_aws.exception.ProductNotFoundException;
+import com.sbaldasso.ecommerce_aws.repository.OutboxEventRepository;
+import com.sbaldasso.ecommerce_aws.repository.ProductRepository;
+import com.sbaldasso.ecommerce_aws.support.PostgresContainerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.product;
+import static com.sbaldasso.ecommerce_aws.support.ProductFixtures.runningShoe;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({JpaConfig.class, PostgresContainerConfig.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductWriteIntegrationTest {
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private OutboxEventRepository outboxRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<ProductChangedEvent> events = new ArrayList<>();
+    private ProductKeyFilter keys;
+    private ProductService service;
+    private ProductBodyCache bodies;
+    private Product existing;
+
+    @BeforeEach
+    void setUp() {
+        OutboxService outbox = new OutboxService(outboxRepo, new Jackson2JsonMessageConverter(),
+                new ObjectMapper().findAndRegisterModules());
+        // Never rebuilt nor subscribed unless a test asks for it, so it lets every lookup through
+        keys = new ProductKeyFilter(jdbcTemplate, transactionManager, new KeyFilterProperties(),
+                new SimpleMeterRegistry());
+        service = new ProductService(repo, outbox, event -> events.add((ProductChangedEvent) event), keys);
+        bodies = new ProductBodyCache(service, keys, new ConcurrentMapCacheManager(),
+                new ObjectMapper().findAndRegisterModules(), new ProductBodyCacheProperties());
+        repo.deleteAll();
+
+        existing = repo.saveAndFlush(runningShoe());
+        entityManager.clear();
+    }
+
+    @Test
+    void updateIsOneStatementAndReturnsTheNewVersion() {
+        Statistics statistics = statistics();
+
+        ProductResponse response = service.update(existing.getId(), request("Trail Shoe", null), null);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getName()).isEqualTo("Trail Shoe");
+        assertThat(response.getDescription()).isNull();
+        assertThat(response.getSku()).isEqualTo("SHOE-001");
+        assertThat(response.getVersion()).isEqualTo(existing.getVersion() + 1);
+        assertThat(events).extracting(ProductChangedEvent::getType).containsExactly(ProductChangedEvent.Type.UPDATED);
+    }
+
+    @Test
+    void matchingIfMatchUpdates() {
+        ProductResponse response = service.update(existing.getId(), request("Trail Shoe", "Grippy"),
+                Set.of(existing.getVersion()));
+
+        assertThat(response.getDescription()).isEqualTo("Grippy");
+    }
+
+    @Test
+    void staleIfMatchIsRejectedAndLeavesTheRow() {
+        assertThatThrownBy(() -> service.update(existing.getId(), request("Trail Shoe", null),
+                Set.of(existing.getVersion() + 7)))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        entityManager.clear();
+        assertThat(repo.findById(existing.getId())).get().extracting(Product::getName).isEqualTo("Running Shoe");
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void updatingAMissingProductIsNotFound() {
+        assertThatThrownBy(() -> service.update(-1L, request("Ghost", null), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deleteIsOneStatement() {
+        Statistics statistics = statistics();
+
+        service.delete(existing.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(repo.existsById(existing.getId())).isFalse();
+        assertThat(events).extracting(ProductChangedEvent::getType).containsExactly(ProductChangedEvent.Type.DELETED);
+    }
+
+    @Test
+    void deletingAMissingProductIsNotFound() {
+        assertThatThrownBy(() -> service.delete(-1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void idsMissingFromTheFilterAreNotFoundWithoutAQuery() {
+        keys.subscriptionStarted();
+        keys.rebuild();
+
+        assertThat(statementsToMiss(existing.getId() - 1)).isZero();
+        assertThat(bodies.get(existing.getId()).id()).isEqualTo(existing.getId());
+    }
+
+    @Test
+    void aProductCreatedElsewhereIsFoundBeforeItsBroadcastArrives() {
+        keys.subscriptionStarted();
+        keys.rebuild();
+        Product remote = createdElsewhere();
+
+        assertThat(bodies.get(remote.getId()).id()).isEqualTo(remote.getId());
+    }
+
+    @Test
+    void requestsPinnedAfterAWriteLookMissingIdsUp() {
+        keys.subscriptionStarted();
+        keys.rebuild();
+
+        ReadYourWrites.pin();
+        try {
+            assertThat(statementsToMiss(existing.getId() - 1)).isEqualTo(1);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    @Test
+    void withoutTheInvalidationSubscriptionMissingIdsAreLookedUp() {
+        keys.rebuild();
+
+        assertThat(statementsToMiss(existing.getId() - 1)).isEqualTo(1);
+    }
+
+    @Test
+    void aLostSubscriptionStopsTrustingMissingIds() {
+        keys.subscriptionStarted();
+        keys.rebuild();
+        keys.subscriptionLost();
+
+        assertThat(statementsToMiss(existing.getId() - 1)).isEqualTo(1);
+    }
+
+    @Test
+    void aFilterBuiltBeforeTheSubscriptionIsNotTrusted() {
+        keys.rebuild();
+        keys.subscriptionStarted();
+
+        assertThat(statementsToMiss(existing.getId() - 1)).isEqualTo(1);
+    }
+
+    @Test
+    void createdSkusAreKnownToTheFilter() {
+        keys.rebuild();
+        ProductRequest req = request("Trail Shoe", null);
+        req.setSku("SHOE-002");
+
+        service.create(req);
+
+        assertThat(keys.mightContainSku("SHOE-002")).isTrue();
+        assertThatThrownBy(() -> service.create(req))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("SKU already exists");
+    }
+
+    @Test
+    void theUniqueConstraintCatchesSkusTheFilterHasNotSeen() {
+        keys.rebuild();
+        // Inserted behind the filter's back, like a create racing on another node
+        repo.saveAndFlush(product("SHOE-003", "Sandal", null, "10.00", 1));
+        ProductRequest req = request("Duplicate", null);
+        req.setSku("SHOE-003");
+
+        assertThatThrownBy(() -> service.create(req))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("SKU already exists");
+    }
+
+    // Inserted behind the filter's back, like a create on another node whose broadcast has not arrived
+    private Product createdElsewhere() {
+        Product remote = repo.saveAndFlush(product("SHOE-003", "Sandal", null, "10.00", 1));
+        entityManager.clear();
+        return remote;
+    }
+
+    // Not found either way; the number of statements it took to find out
+    private long statementsToMiss(Long id) {
+        Statistics statistics = statistics();
+        assertThatThrownBy(() -> bodies.get(id)).isInstanceOf(ProductNotFoundException.class);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private static ProductRequest request(String name, String description) {
+        ProductRequest req = new ProductRequest();
+        req.setSku("SHOE-001");
+        req.setName(name);
+        req.setDescription(description);
+        req.setPrice(new BigDecimal("109.90"));
+        req.setQuantity(7);
+        return req;
+    }
+}
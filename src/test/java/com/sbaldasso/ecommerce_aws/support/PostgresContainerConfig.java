@@ -0,0 +1,18 @@
+package com.sbaldasso.ecommerce_aws.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// Postgres for slice tests: @Import it next to @AutoConfigureTestDatabase(replace = NONE).
+// The container lives as long as the cached test context, so classes sharing a context share it.
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresContainerConfig {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgres() {
+        return new PostgreSQLContainer<>("postgres:16-alpine");
+    }
+}
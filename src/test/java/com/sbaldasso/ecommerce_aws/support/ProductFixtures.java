@@ -0,0 +1,25 @@
+package com.sbaldasso.ecommerce_aws.support;
+
+import com.sbaldasso.ecommerce_aws.entities.Product;
+
+import java.math.BigDecimal;
+
+public final class ProductFixtures {
+
+    private ProductFixtures() {
+    }
+
+    public static Product runningShoe() {
+        return product("SHOE-001", "Running Shoe", null, "99.90", 5);
+    }
+
+    public static Product product(String sku, String name, String description, String price, int quantity) {
+        Product p = new Product();
+        p.setSku(sku);
+        p.setName(name);
+        p.setDescription(description);
+        p.setPrice(new BigDecimal(price));
+        p.setQuantity(quantity);
+        return p;
+    }
+}